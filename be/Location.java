@@ -1,14 +1,17 @@
 package com.example.hcm25_cpl_ks_java_01_lms.location;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 @Entity
-@Builder
+@Table(name = "location", uniqueConstraints = @UniqueConstraint(name = "uk_location_name", columnNames = "name"))
+@Builder(toBuilder = true)
 public class Location {
 
     @Id
@@ -22,6 +25,27 @@ public class Location {
     @Lob
     private String address;
 
+    // WGS84 degrees, both set or both empty; feeds LocationSpatialIndex
+    private Double latitude;
+
+    private Double longitude;
+
+    // LocationContentHash of the values above, compared by sync imports
+    @JsonIgnore
+    @Column(length = 64)
+    private String contentHash;
+
+    // Optimistic lock and per-row ETag; the default fills the column for rows that predate it
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    void refreshContentHash() {
+        contentHash = LocationContentHash.of(this);
+    }
+
     @Override
     public String toString() {
         return name;
@@ -7,66 +7,237 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/locations")
 @PreAuthorize("@customSecurityService.hasRoleForModule(authentication, 'Location')")
 @Tag(name = "Location", description = "Location management API")
 public class LocationAPIController {
-    
+    // Clients and proxies may store responses but must revalidate them with If-None-Match every time
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+    private static final int MAX_CHANGES_WAIT_SECONDS = 60;
+
     private final LocationService locationService;
+    private final LocationImportJobService locationImportJobService;
+    private final LocationExportJobService locationExportJobService;
+    private final LocationApiExecutor apiExecutor;
+    private final LocationChangeFeed changeFeed;
 
-    public LocationAPIController(LocationService locationService) {
+    public LocationAPIController(LocationService locationService, LocationImportJobService locationImportJobService,
+                                 LocationExportJobService locationExportJobService, LocationApiExecutor apiExecutor,
+                                 LocationChangeFeed changeFeed) {
         this.locationService = locationService;
+        this.locationImportJobService = locationImportJobService;
+        this.locationExportJobService = locationExportJobService;
+        this.apiExecutor = apiExecutor;
+        this.changeFeed = changeFeed;
+    }
+
+    @ExceptionHandler(LocationOverloadedException.class)
+    public ResponseEntity<String> handleOverloaded(LocationOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
     }
 
     @GetMapping
-    @Operation(summary = "Get all locations", description = "Get a paginated list of locations with optional filtering")
+    @Operation(summary = "Get all locations", description = "Get a paginated list of locations with optional filtering; addresses are truncated to a preview. Supports If-None-Match")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved locations",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Page.class)))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Page.class))),
+            @ApiResponse(responseCode = "304", description = "No location has changed since the given ETag"),
+            @ApiResponse(responseCode = "429", description = "Too many requests in flight")
     })
-    public ResponseEntity<Page<Location>> listLocations(
+    public Object listLocations(
             @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Optional search term") @RequestParam(required = false) String searchTerm,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        long version = locationService.getTableVersion();
+        String etag = "\"locations-" + version + "\"";
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+        return apiExecutor.submit(() -> {
+            // Tagged with the version of the database that served the rows, which may be a replica
+            LocationSnapshot<Page<LocationSummary>> snapshot =
+                    locationService.getLocationSummarySnapshot(searchTerm, page, size, version);
+            return ResponseEntity.ok()
+                    .eTag("\"locations-" + snapshot.getVersion() + "\"")
+                    .cacheControl(REVALIDATE)
+                    .body(snapshot.getData());
+        });
+    }
+
+    @GetMapping(params = {"limit", "!address"})
+    @Operation(summary = "Get locations by cursor",
+            description = "Get locations ordered by ID after an opaque cursor, without counting the whole table")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved locations",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LocationSlice.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request - invalid cursor or limit"),
+            @ApiResponse(responseCode = "429", description = "Too many requests in flight")
+    })
+    public Object listLocationsAfter(
+            @Parameter(description = "Cursor returned as nextCursor by the previous call; omit for the first slice") @RequestParam(required = false) String after,
+            @Parameter(description = "Maximum number of locations to return") @RequestParam int limit,
             @Parameter(description = "Optional search term") @RequestParam(required = false) String searchTerm) {
-        Page<Location> locations = locationService.getAllLocations(searchTerm, page, size);
-        return ResponseEntity.ok(locations);
+        return apiExecutor.submit(() -> {
+            try {
+                return ResponseEntity.ok(locationService.getLocationsAfter(after, limit, searchTerm));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
+    }
+
+    @GetMapping(params = "address")
+    @Operation(summary = "Search locations by address",
+            description = "Full-text search over addresses; every word must match, accents are ignored")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved locations",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Page.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request - invalid page or size, or combined with limit"),
+            @ApiResponse(responseCode = "429", description = "Too many requests in flight"),
+            @ApiResponse(responseCode = "503", description = "Address index is still loading")
+    })
+    public Object searchByAddress(
+            @Parameter(description = "Words to look for in the address") @RequestParam String address,
+            @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(hidden = true) @RequestParam(required = false) String limit) {
+        // Address search is paged by page and size only; without this both mappings would match
+        if (limit != null) {
+            return ResponseEntity.badRequest().body("address cannot be combined with limit, use page and size");
+        }
+        return apiExecutor.submit(() -> {
+            try {
+                return ResponseEntity.ok(locationService.searchByAddress(address, page, size));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+            }
+        });
+    }
+
+    @GetMapping("/nearest")
+    @Operation(summary = "Find nearest locations", description = "The k locations closest to a point, nearest first, with their distance in km")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved locations",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LocationNearby.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request - invalid point or k"),
+            @ApiResponse(responseCode = "503", description = "Spatial index is still loading")
+    })
+    public ResponseEntity<?> findNearest(
+            @Parameter(description = "Latitude in degrees", required = true) @RequestParam double lat,
+            @Parameter(description = "Longitude in degrees", required = true) @RequestParam double lng,
+            @Parameter(description = "Number of locations to return") @RequestParam(defaultValue = "5") int k) {
+        try {
+            return ResponseEntity.ok(locationService.findNearest(lat, lng, k));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/within")
+    @Operation(summary = "Find locations within a radius", description = "Locations within a distance of a point, nearest first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved locations",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LocationNearby.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request - invalid point, radius or limit"),
+            @ApiResponse(responseCode = "503", description = "Spatial index is still loading")
+    })
+    public ResponseEntity<?> findWithin(
+            @Parameter(description = "Latitude in degrees", required = true) @RequestParam double lat,
+            @Parameter(description = "Longitude in degrees", required = true) @RequestParam double lng,
+            @Parameter(description = "Radius in km", required = true) @RequestParam double radiusKm,
+            @Parameter(description = "Maximum number of locations to return") @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(locationService.findWithin(lat, lng, radiusKm, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get location by ID", description = "Get location details by ID")
+    @Operation(summary = "Get location by ID", description = "Get location details by ID. Supports If-None-Match")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved location",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Location.class))),
-            @ApiResponse(responseCode = "404", description = "Location not found")
+            @ApiResponse(responseCode = "304", description = "Location has not changed since the given ETag"),
+            @ApiResponse(responseCode = "404", description = "Location not found"),
+            @ApiResponse(responseCode = "429", description = "Too many requests in flight")
     })
-    public ResponseEntity<Location> getLocationById(
-            @Parameter(description = "Location ID", required = true) @PathVariable Long id) {
-        Location location = locationService.getLocationById(id);
-        if (location != null) {
-            return ResponseEntity.ok(location);
-        } else {
-            return ResponseEntity.notFound().build();
+    public Object getLocationById(
+            @Parameter(description = "Location ID", required = true) @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return apiExecutor.submit(() -> {
+            Location location = locationService.getLocationById(id);
+            if (location == null) {
+                return ResponseEntity.notFound().build();
+            }
+            String etag = entityTag(location);
+            if (etagMatches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+            }
+            return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(location);
+        });
+    }
+
+    private static String entityTag(Location location) {
+        return "\"location-" + location.getId() + "-" + location.getVersion() + "\"";
+    }
+
+    // If-None-Match may be "*" or a list of tags; for GET a weak tag matches its strong form
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
         }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @PostMapping
@@ -74,62 +245,175 @@ public class LocationAPIController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Location created successfully",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Location.class))),
-            @ApiResponse(responseCode = "400", description = "Bad request - validation error")
+            @ApiResponse(responseCode = "400", description = "Bad request - validation error"),
+            @ApiResponse(responseCode = "429", description = "Too many requests in flight")
     })
-    public ResponseEntity<?> createLocation(
+    public Object createLocation(
             @Parameter(description = "Location data", required = true) @RequestBody Location location) {
-        try {
-            Location savedLocation = locationService.createLocation(location);
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedLocation);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
+        return apiExecutor.submit(() -> {
+            try {
+                Location savedLocation = locationService.createLocation(location);
+                return ResponseEntity.status(HttpStatus.CREATED).body(savedLocation);
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Create or update locations in batch",
+            description = "Items without an ID are created, items with an ID are updated; each item gets its own result")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed; see the status of each item"),
+            @ApiResponse(responseCode = "400", description = "Bad request - empty batch")
+    })
+    public ResponseEntity<?> saveLocations(
+            @Parameter(description = "Locations to create or update", required = true) @RequestBody List<Location> locations) {
+        if (locations == null || locations.isEmpty()) {
+            return ResponseEntity.badRequest().body("No locations given");
         }
+        List<LocationBatchResult> results = locationService.saveLocations(locations);
+        return ResponseEntity.ok(results);
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Update location", description = "Update an existing location by ID")
+    @Operation(summary = "Update location", description = "Update an existing location by ID; send the version you read to detect concurrent edits")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Location updated successfully",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Location.class))),
             @ApiResponse(responseCode = "400", description = "Bad request - validation error"),
-            @ApiResponse(responseCode = "404", description = "Location not found")
+            @ApiResponse(responseCode = "404", description = "Location not found"),
+            @ApiResponse(responseCode = "409", description = "Location was changed since the given version"),
+            @ApiResponse(responseCode = "429", description = "Too many requests in flight")
     })
-    public ResponseEntity<?> updateLocation(
+    public Object updateLocation(
             @Parameter(description = "Location ID", required = true) @PathVariable Long id,
             @Parameter(description = "Updated location data", required = true) @RequestBody Location locationDetails) {
-        try {
-            Location existingLocation = locationService.getLocationById(id);
-            if (existingLocation == null) {
-                return ResponseEntity.notFound().build();
+        return apiExecutor.submit(() -> {
+            try {
+                Location existingLocation = locationService.getLocationById(id);
+                if (existingLocation == null) {
+                    return ResponseEntity.notFound().build();
+                }
+
+                locationDetails.setId(id);
+                Location updatedLocation = locationService.updateLocation(locationDetails);
+                return ResponseEntity.ok().eTag(entityTag(updatedLocation)).body(updatedLocation);
+            } catch (OptimisticLockingFailureException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
             }
-            
-            locationDetails.setId(id);
-            Location updatedLocation = locationService.updateLocation(locationDetails);
-            return ResponseEntity.ok(updatedLocation);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+        });
     }
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete location", description = "Delete a location by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Location deleted successfully"),
-            @ApiResponse(responseCode = "404", description = "Location not found")
+            @ApiResponse(responseCode = "404", description = "Location not found"),
+            @ApiResponse(responseCode = "429", description = "Too many requests in flight")
     })
-    public ResponseEntity<?> deleteLocation(
+    public Object deleteLocation(
             @Parameter(description = "Location ID", required = true) @PathVariable Long id) {
-        try {
-            Location location = locationService.getLocationById(id);
-            if (location == null) {
-                return ResponseEntity.notFound().build();
+        return apiExecutor.submit(() -> {
+            try {
+                Location location = locationService.getLocationById(id);
+                if (location == null) {
+                    return ResponseEntity.notFound().build();
+                }
+
+                locationService.deleteLocation(id);
+                return ResponseEntity.noContent().build();
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
             }
-            
-            locationService.deleteLocation(id);
-            return ResponseEntity.noContent().build();
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
+        });
+    }
+
+    @GetMapping("/options")
+    @Operation(summary = "Get location options", description = "Get the ID and name of every location for dropdowns; supports If-None-Match")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved location options",
+                    content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "304", description = "Options have not changed since the given ETag"),
+            @ApiResponse(responseCode = "429", description = "Too many requests in flight")
+    })
+    public Object getLocationOptions(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return apiExecutor.submit(() -> {
+            LocationOptionsPayload payload = locationService.getLocationOptionsPayload();
+            if (etagMatches(ifNoneMatch, payload.getEtag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(payload.getEtag()).build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(payload.getEtag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(payload.getJson());
+        });
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Get location changes", description = "Changes committed after the given sequence, oldest first, "
+            + "for keeping a local copy in sync. Without since, returns no changes and the sequence to start from. "
+            + "When nothing is pending the request waits up to waitSeconds for a change")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changes after since; resume from nextSince",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LocationChangeBatch.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request - invalid since, limit or waitSeconds"),
+            @ApiResponse(responseCode = "410", description = "Changes after since were purged; reload the locations and resume from nextSince"),
+            @ApiResponse(responseCode = "429", description = "Too many waiting or in-flight requests")
+    })
+    public DeferredResult<ResponseEntity<?>> getChanges(
+            @Parameter(description = "Last sequence already applied") @RequestParam(required = false) Long since,
+            @Parameter(description = "Maximum number of changes to return") @RequestParam(defaultValue = "500") int limit,
+            @Parameter(description = "Seconds to wait for a change when none is pending (0 to 60)") @RequestParam(defaultValue = "25") int waitSeconds) {
+        DeferredResult<ResponseEntity<?>> immediate = new DeferredResult<>();
+        if (waitSeconds < 0 || waitSeconds > MAX_CHANGES_WAIT_SECONDS) {
+            immediate.setResult(ResponseEntity.badRequest().body("waitSeconds must be between 0 and " + MAX_CHANGES_WAIT_SECONDS));
+            return immediate;
+        }
+        // The queries run here under a permit; the wait itself holds no connection
+        return apiExecutor.runWithPermit(() -> {
+            if (since == null || !changeFeed.isRetained(since)) {
+                LocationChangeBatch start = new LocationChangeBatch(List.of(), List.of(), changeFeed.latestSeq(), false);
+                immediate.setResult(since == null ? ResponseEntity.ok(start) : ResponseEntity.status(HttpStatus.GONE).body(start));
+                return immediate;
+            }
+            try {
+                return changeFeed.poll(since, limit, Duration.ofSeconds(waitSeconds), ResponseEntity::ok);
+            } catch (IllegalArgumentException e) {
+                immediate.setResult(ResponseEntity.badRequest().body(e.getMessage()));
+                return immediate;
+            }
+        });
+    }
+
+    @GetMapping("/cache/stats")
+    @Operation(summary = "Get location cache statistics", description = "Hit, miss and eviction counts of the location read caches")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved cache statistics")
+    })
+    public ResponseEntity<Map<String, LocationCache.Stats>> getCacheStats() {
+        return ResponseEntity.ok(locationService.getCacheStats());
+    }
+
+    @PostMapping("/bulk-delete")
+    @Operation(summary = "Delete locations in bulk", description = "Delete many locations by ID and report the outcome for each ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Outcome per ID: DELETED, NOT_FOUND or REFERENCED"),
+            @ApiResponse(responseCode = "400", description = "Bad request - no IDs given"),
+            @ApiResponse(responseCode = "429", description = "Too many requests in flight")
+    })
+    public Object deleteLocations(
+            @Parameter(description = "IDs of the locations to delete", required = true) @RequestBody List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return ResponseEntity.badRequest().body("No locations selected for deletion");
         }
+        return apiExecutor.submit(() -> {
+            Map<Long, LocationDeleteOutcome> outcomes = locationService.deleteLocations(ids);
+            return ResponseEntity.ok(outcomes);
+        });
     }
 
     @GetMapping("/export")
@@ -156,31 +440,258 @@ public class LocationAPIController {
                     .body(new InputStreamResource(in));
                     
         } catch (Exception e) {
+            log.error("Location Excel export failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @GetMapping("/export/all")
+    @Operation(summary = "Export all locations to Excel", description = "Stream the whole location table as an Excel file")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Excel file streamed successfully",
+                    content = @Content(mediaType = "application/vnd.ms-excel"))
+    })
+    public ResponseEntity<StreamingResponseBody> exportAllToExcel() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Content-Disposition", "attachment; filename=locations.xlsx");
+
+        StreamingResponseBody body = locationService::exportAllToExcel;
+        return ResponseEntity
+                .ok()
+                .headers(headers)
+                .contentType(MediaType.parseMediaType("application/vnd.ms-excel"))
+                .body(body);
+    }
+
+    @GetMapping(value = "/export/csv", produces = "text/csv")
+    @Operation(summary = "Export locations to CSV", description = "Stream the whole location table as CSV")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "CSV streamed successfully", content = @Content(mediaType = "text/csv"))
+    })
+    public ResponseEntity<StreamingResponseBody> exportToCsv() {
+        StreamingResponseBody body = locationService::exportToCsv;
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=locations.csv")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+    @GetMapping(value = "/export/ndjson", produces = LocationTextExporter.NDJSON_MEDIA_TYPE)
+    @Operation(summary = "Export locations to NDJSON", description = "Stream the whole location table as one JSON object per line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "NDJSON streamed successfully",
+                    content = @Content(mediaType = LocationTextExporter.NDJSON_MEDIA_TYPE))
+    })
+    public ResponseEntity<StreamingResponseBody> exportToNdjson() {
+        StreamingResponseBody body = locationService::exportToNdjson;
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=locations.ndjson")
+                .contentType(MediaType.parseMediaType(LocationTextExporter.NDJSON_MEDIA_TYPE))
+                .body(body);
+    }
+
+    @PostMapping("/export/jobs")
+    @Operation(summary = "Start an export job",
+            description = "Generate an Excel export in the background; identical requests share one job and its cached file")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Export job accepted",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LocationExportJob.class))),
+            @ApiResponse(responseCode = "429", description = "Too many exports are already queued")
+    })
+    public ResponseEntity<?> startExportJob(
+            @Parameter(description = "Optional search term; exports the whole table when empty") @RequestParam(required = false) String searchTerm) {
+        try {
+            LocationExportJob job = locationExportJobService.submit(searchTerm);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/locations/export/jobs/" + job.getId()))
+                    .body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "10")
+                    .body("Too many exports in progress, please retry later");
+        }
+    }
+
+    @GetMapping("/export/jobs/{jobId}")
+    @Operation(summary = "Get export job", description = "Get the status of an export job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved export job",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LocationExportJob.class))),
+            @ApiResponse(responseCode = "404", description = "Export job not found or expired")
+    })
+    public ResponseEntity<LocationExportJob> getExportJob(
+            @Parameter(description = "Export job ID", required = true) @PathVariable String jobId) {
+        LocationExportJob job = locationExportJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @GetMapping("/export/jobs/{jobId}/file")
+    @Operation(summary = "Download export file", description = "Download the Excel file of a completed export job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Excel file",
+                    content = @Content(mediaType = "application/vnd.ms-excel")),
+            @ApiResponse(responseCode = "404", description = "Export job not found or expired"),
+            @ApiResponse(responseCode = "409", description = "Export job has not completed")
+    })
+    public ResponseEntity<Resource> downloadExportFile(
+            @Parameter(description = "Export job ID", required = true) @PathVariable String jobId,
+            HttpServletRequest request) {
+        LocationExportJob job = locationExportJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != LocationExportJob.Status.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        Resource file = locationExportJobService.openDownload(job);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Content-Disposition", "attachment; filename=locations.xlsx");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .headers(headers)
+                .contentType(MediaType.parseMediaType("application/vnd.ms-excel"))
+                .contentLength(job.getSizeBytes());
+
+        // Let Tomcat send the file with sendfile (zero-copy) when the connector supports it
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", job.getFile().toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+            request.setAttribute("org.apache.tomcat.sendfile.end", job.getSizeBytes());
+            return response.build();
+        }
+        return response.body(file);
+    }
+
     @PostMapping("/import")
     @PreAuthorize("hasAnyRole('Admin')")
     @Operation(summary = "Import locations from Excel", description = "Import locations from an Excel file")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Locations imported successfully"),
-            @ApiResponse(responseCode = "400", description = "Bad request - invalid file format or empty file")
+            @ApiResponse(responseCode = "200", description = "Locations imported successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LocationImportResult.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request - invalid file format, empty file or duplicate name in FAIL mode")
     })
     public ResponseEntity<?> importExcel(
-            @Parameter(description = "Excel file to import", required = true) @RequestParam("file") MultipartFile file) {
+            @Parameter(description = "Excel file to import", required = true) @RequestParam("file") MultipartFile file,
+            @Parameter(description = "What to do with rows whose name already exists") @RequestParam(defaultValue = "SKIP") LocationImportMode mode) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body("Please select a file to upload");
         }
 
         try {
-            List<Location> locations = LocationExcelImporter.importLocations(file.getInputStream());
-            locationService.saveAllFromExcel(locations);
-            return ResponseEntity.ok("Successfully uploaded and imported data");
+            LocationImportResult result = locationService.importFromExcel(file.getInputStream(), mode);
+            return ResponseEntity.ok(result);
         } catch (IOException e) {
-            e.printStackTrace();
+            log.warn("Location Excel import of {} failed", file.getOriginalFilename(), e);
             return ResponseEntity.badRequest().body("Failed to import data from file");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/import/csv", consumes = "text/csv")
+    @PreAuthorize("hasAnyRole('Admin')")
+    @Operation(summary = "Import locations from CSV", description = "Import a CSV request body with name and address columns")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Locations imported successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LocationImportResult.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request - malformed CSV or duplicate name in FAIL mode")
+    })
+    public ResponseEntity<?> importCsv(
+            @Parameter(description = "What to do with rows whose name already exists") @RequestParam(defaultValue = "SKIP") LocationImportMode mode,
+            HttpServletRequest request) {
+        return importStream(request, LocationImportFormat.CSV, mode);
+    }
+
+    @PostMapping(value = "/import/ndjson", consumes = LocationTextExporter.NDJSON_MEDIA_TYPE)
+    @PreAuthorize("hasAnyRole('Admin')")
+    @Operation(summary = "Import locations from NDJSON", description = "Import a request body with one {name, address} JSON object per line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Locations imported successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LocationImportResult.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request - malformed JSON or duplicate name in FAIL mode")
+    })
+    public ResponseEntity<?> importNdjson(
+            @Parameter(description = "What to do with rows whose name already exists") @RequestParam(defaultValue = "SKIP") LocationImportMode mode,
+            HttpServletRequest request) {
+        return importStream(request, LocationImportFormat.NDJSON, mode);
+    }
+
+    private ResponseEntity<?> importStream(HttpServletRequest request, LocationImportFormat format, LocationImportMode mode) {
+        try {
+            LocationImportResult result = locationService.importLocations(request.getInputStream(), format, mode);
+            return ResponseEntity.ok(result);
+        } catch (IOException e) {
+            log.warn("Location {} import failed", format, e);
+            return ResponseEntity.badRequest().body("Failed to import data: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/import/jobs")
+    @PreAuthorize("hasAnyRole('Admin')")
+    @Operation(summary = "Start an import job", description = "Upload an Excel, CSV or NDJSON file and import it in the background")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Import job accepted",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LocationImportJob.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request - empty file"),
+            @ApiResponse(responseCode = "429", description = "Too many imports are already running or queued")
+    })
+    public ResponseEntity<?> startImportJob(
+            @Parameter(description = "Excel file to import", required = true) @RequestParam("file") MultipartFile file,
+            @Parameter(description = "What to do with rows whose name already exists") @RequestParam(defaultValue = "SKIP") LocationImportMode mode) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("Please select a file to upload");
+        }
+
+        try {
+            LocationImportJob job = locationImportJobService.submit(file, mode);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/locations/import/" + job.getId()))
+                    .body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body("Too many imports in progress, please retry later");
+        } catch (IOException e) {
+            log.warn("Could not spool location import upload {}", file.getOriginalFilename(), e);
+            return ResponseEntity.badRequest().body("Failed to read uploaded file");
+        }
+    }
+
+    @GetMapping("/import/{jobId}")
+    @Operation(summary = "Get import job", description = "Get the progress and result of an import job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved import job",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LocationImportJob.class))),
+            @ApiResponse(responseCode = "404", description = "Import job not found")
+    })
+    public ResponseEntity<LocationImportJob> getImportJob(
+            @Parameter(description = "Import job ID", required = true) @PathVariable String jobId) {
+        LocationImportJob job = locationImportJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @DeleteMapping("/import/{jobId}")
+    @PreAuthorize("hasAnyRole('Admin')")
+    @Operation(summary = "Cancel import job", description = "Cancel a queued or running import job; committed batches are kept")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Cancellation requested"),
+            @ApiResponse(responseCode = "404", description = "Import job not found")
+    })
+    public ResponseEntity<LocationImportJob> cancelImportJob(
+            @Parameter(description = "Import job ID", required = true) @PathVariable String jobId) {
+        LocationImportJob job = locationImportJobService.cancel(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.accepted().body(job);
     }
 
     @GetMapping("/download-template")
@@ -203,6 +714,7 @@ public class LocationAPIController {
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
                     .body(resource);
         } catch (Exception e) {
+            log.error("Could not read the location import template", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
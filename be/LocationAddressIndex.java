@@ -0,0 +1,162 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted token index over location addresses. Addresses are read from the LOB column once at startup,
+ * then the index is kept current from {@link LocationsChangedEvent}s, including the remote ones replayed from the
+ * change outbox for writes on other nodes. Tokens are diacritic-folded, so
+ * "duong le loi" finds "Đường Lê Lợi". Every query token must match; the last one may be a prefix.
+ */
+@Slf4j
+@Component
+public class LocationAddressIndex {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private final LocationRepository locationRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Set<String>> tokensById = new HashMap<>();
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+    private volatile boolean ready;
+
+    public LocationAddressIndex(LocationRepository locationRepository) {
+        this.locationRepository = locationRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            tokensById.clear();
+            postings.clear();
+            long lastId = 0L;
+            List<Location> chunk;
+            do {
+                chunk = locationRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_CHUNK_SIZE));
+                for (Location location : chunk) {
+                    put(location.getId(), location.getAddress());
+                    lastId = location.getId();
+                }
+            } while (chunk.size() == REBUILD_CHUNK_SIZE);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Location address index built with {} tokens in {} ms", postings.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsChanged(LocationsChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : event.getDeletedIds()) {
+                remove(id);
+            }
+            for (Location location : event.getSaved()) {
+                remove(location.getId());
+                put(location.getId(), location.getAddress());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the ids of all matching locations in ascending order.
+     */
+    public List<Long> search(String query) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Set<Long> result = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                Set<Long> matches = i == tokens.size() - 1 ? prefixMatches(tokens.get(i)) : exactMatches(tokens.get(i));
+                if (result == null) {
+                    result = new TreeSet<>(matches);
+                } else {
+                    result.retainAll(matches);
+                }
+                if (result.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            return new ArrayList<>(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Long> exactMatches(String token) {
+        return postings.getOrDefault(token, Collections.emptySet());
+    }
+
+    private Set<Long> prefixMatches(String prefix) {
+        NavigableMap<String, Set<Long>> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.size() == 1) {
+            return range.firstEntry().getValue();
+        }
+        Set<Long> ids = new HashSet<>();
+        range.values().forEach(ids::addAll);
+        return ids;
+    }
+
+    private void put(Long id, String address) {
+        Set<String> tokens = new LinkedHashSet<>(tokenize(address));
+        tokensById.put(id, tokens);
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void remove(Long id) {
+        Set<String> tokens = tokensById.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Set<Long> ids = postings.get(token);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(LocationTextNormalizer.normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs location API work according to {@code location.api.execution-mode}:
+ * <ul>
+ *     <li>{@code blocking} (default): inline on the Tomcat worker thread, as before. {@link #submit} returns the
+ *     response itself, so the request stays synchronous.</li>
+ *     <li>{@code virtual}: on a virtual thread, with the request completed asynchronously so the Tomcat worker
+ *     is released. At most {@code location.api.max-concurrent-queries} tasks touch JDBC at once (keep it at or
+ *     below the connection pool size); up to {@code location.api.max-queued} more wait for a permit, and anything
+ *     beyond that is shed with {@link LocationOverloadedException}.</li>
+ * </ul>
+ */
+@Component
+public class LocationApiExecutor {
+    private final boolean virtual;
+    private final Semaphore jdbcPermits;
+    private final int maxInFlight;
+    private final int retryAfterSeconds;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ExecutorService executor;
+
+    public LocationApiExecutor(@Value("${location.api.execution-mode:blocking}") String executionMode,
+                               @Value("${location.api.max-concurrent-queries:10}") int maxConcurrentQueries,
+                               @Value("${location.api.max-queued:200}") int maxQueued,
+                               @Value("${location.api.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.virtual = "virtual".equals(executionMode.toLowerCase(Locale.ROOT));
+        this.jdbcPermits = new Semaphore(maxConcurrentQueries, true);
+        this.maxInFlight = maxConcurrentQueries + maxQueued;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = virtual ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("location-api-", 0).factory()) : null;
+    }
+
+    /**
+     * Returns the response itself in blocking mode, or a {@link CompletableFuture} of it in virtual mode.
+     * Spring MVC starts async processing and redispatches for any returned CompletionStage, even a completed
+     * one, so handlers declare {@code Object} and let MVC pick the return value handler from the actual value.
+     */
+    public Object submit(Supplier<? extends ResponseEntity<?>> work) {
+        if (!virtual) {
+            return work.get();
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            throw new LocationOverloadedException(retryAfterSeconds);
+        }
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                SecurityContextHolder.setContext(securityContext);
+                try {
+                    jdbcPermits.acquire();
+                    try {
+                        return work.get();
+                    } finally {
+                        jdbcPermits.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                    inFlight.decrementAndGet();
+                }
+            }, executor);
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs {@code work} on the calling thread under the same overload limit and JDBC permits as {@link #submit}
+     * in virtual mode, and simply runs it in blocking mode. For handlers that produce their own async result, such
+     * as a long poll: only the queries made here hold a permit, not the wait that follows.
+     */
+    public <T> T runWithPermit(Supplier<T> work) {
+        if (!virtual) {
+            return work.get();
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            throw new LocationOverloadedException(retryAfterSeconds);
+        }
+        try {
+            jdbcPermits.acquire();
+            try {
+                return work.get();
+            } finally {
+                jdbcPermits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a database permit", e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
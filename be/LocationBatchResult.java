@@ -0,0 +1,34 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Result for one item of a batch create/update request, in request order.
+ */
+@Getter
+@AllArgsConstructor
+public class LocationBatchResult {
+    public enum Status {
+        CREATED,
+        UPDATED,
+        REJECTED
+    }
+
+    private final int index;
+    private final Long id;
+    private final Status status;
+    private final String message;
+
+    static LocationBatchResult created(int index, Long id) {
+        return new LocationBatchResult(index, id, Status.CREATED, null);
+    }
+
+    static LocationBatchResult updated(int index, Long id) {
+        return new LocationBatchResult(index, id, Status.UPDATED, null);
+    }
+
+    static LocationBatchResult rejected(int index, Long id, String message) {
+        return new LocationBatchResult(index, id, Status.REJECTED, message);
+    }
+}
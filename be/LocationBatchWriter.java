@@ -0,0 +1,77 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Plain JDBC batch writes for bulk loads. {@code Location.id} uses IDENTITY generation, which disables
+ * Hibernate insert batching, so bulk paths go through {@link JdbcTemplate#batchUpdate} instead.
+ * On MySQL enable {@code rewriteBatchedStatements=true} to turn each batch into multi-row inserts.
+ * Callers own the transaction boundary. Writes keep {@code Location.version} and {@code contentHash} current
+ * like the entity callbacks would.
+ */
+@Repository
+public class LocationBatchWriter {
+    private static final String INSERT_SQL = "INSERT INTO location (name, address, latitude, longitude, content_hash, version) "
+            + "VALUES (?, ?, ?, ?, ?, 0)";
+    private static final String UPDATE_ADDRESS_SQL = "UPDATE location SET address = ?, latitude = ?, longitude = ?, content_hash = ?, "
+            + "version = COALESCE(version, 0) + 1 WHERE id = ?";
+    private static final String UPDATE_SQL = "UPDATE location SET name = ?, address = ?, latitude = ?, longitude = ?, content_hash = ?, "
+            + "version = COALESCE(version, 0) + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LocationBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int insertAll(List<Location> locations) {
+        if (locations.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, locations, locations.size(), (ps, location) -> {
+            ps.setString(1, location.getName());
+            ps.setString(2, location.getAddress());
+            ps.setObject(3, location.getLatitude(), Types.DOUBLE);
+            ps.setObject(4, location.getLongitude(), Types.DOUBLE);
+            ps.setString(5, LocationContentHash.of(location));
+        });
+        return locations.size();
+    }
+
+    /**
+     * Writes address and coordinates as given, nulls included: callers fill in the stored coordinates for rows
+     * that should keep them, so the content hash matches what ends up in the row.
+     */
+    public int updateAddresses(List<Location> locations) {
+        if (locations.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_ADDRESS_SQL, locations, locations.size(), (ps, location) -> {
+            ps.setString(1, location.getAddress());
+            ps.setObject(2, location.getLatitude(), Types.DOUBLE);
+            ps.setObject(3, location.getLongitude(), Types.DOUBLE);
+            ps.setString(4, LocationContentHash.of(location));
+            ps.setLong(5, location.getId());
+        });
+        return locations.size();
+    }
+
+    public int updateAll(List<Location> locations) {
+        if (locations.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SQL, locations, locations.size(), (ps, location) -> {
+            ps.setString(1, location.getName());
+            ps.setString(2, location.getAddress());
+            ps.setObject(3, location.getLatitude(), Types.DOUBLE);
+            ps.setObject(4, location.getLongitude(), Types.DOUBLE);
+            ps.setString(5, LocationContentHash.of(location));
+            ps.setLong(6, location.getId());
+        });
+        return locations.size();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded read-through cache on top of Caffeine: entries are evicted past {@code maxSize} and expire
+ * {@code ttl} after being loaded. Concurrent misses for the same key share one load. Null values are not cached.
+ */
+public class LocationCache<K, V> {
+    private final Cache<K, V> entries;
+    // Bumped on every invalidation so a load that raced with a write is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    public LocationCache(int maxSize, Duration ttl) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        long loadGeneration = generation.get();
+        V value = entries.get(key, loader);
+        if (value != null && generation.get() != loadGeneration) {
+            // Invalidated meanwhile: the value may predate the write, so don't keep it (still fine to return)
+            entries.asMap().remove(key, value);
+        }
+        return value;
+    }
+
+    public void invalidate(K key) {
+        generation.incrementAndGet();
+        entries.invalidate(key);
+    }
+
+    public void invalidateIf(Predicate<V> predicate) {
+        generation.incrementAndGet();
+        entries.asMap().values().removeIf(predicate);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.invalidateAll();
+    }
+
+    public Stats stats() {
+        CacheStats stats = entries.stats();
+        return new Stats(stats.hitCount(), stats.missCount(), stats.evictionCount(), entries.estimatedSize());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long size;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One row of the location change outbox, written in the same transaction as the change itself. It records only
+ * which location changed and how; consumers read the location's current row. {@code seq} is stamped after
+ * commit (see {@link LocationChangeLog#assignSequences()}), so it increases in commit order without gaps and
+ * consumers can resume from the last one they applied. Rows not stamped yet have no {@code seq}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "location_change", indexes = @Index(name = "idx_location_change_changed_at", columnList = "changed_at"))
+@Builder
+public class LocationChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+
+    @Column(unique = true)
+    private Long seq;
+
+    @Column(nullable = false)
+    private Long locationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private LocationChangeType type;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    // Node that wrote the change, see LocationChangeLog#getNodeId()
+    @JsonIgnore
+    @Column(length = 36)
+    private String origin;
+}
@@ -0,0 +1,20 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One delivery of the change feed. Pass {@code nextSince} as {@code since} on the next request; when
+ * {@code hasMore} is set, more changes are already waiting. {@code locations} holds the current row of each
+ * location upserted in the batch; one deleted again since is missing, and a later change in the feed says so.
+ */
+@Getter
+@AllArgsConstructor
+public class LocationChangeBatch {
+    private final List<LocationChange> changes;
+    private final List<Location> locations;
+    private final long nextSince;
+    private final boolean hasMore;
+}
@@ -0,0 +1,311 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Read side of the location change outbox: batches of changes after a given sequence, with the current rows of
+ * the upserted locations read from the primary, and long polling. A waiting poll is answered as soon as a change
+ * commits on this node, or within {@code location.changes.poll-interval} for changes written by other nodes.
+ * Each tick also sequences outbox rows whose writer could not (see {@link LocationChangeLog#assignSequences()})
+ * and republishes changes committed by other nodes as remote {@link LocationsChangedEvent}s, which keeps this
+ * node's in-memory indexes and caches within about one poll interval of the database. Changes older than
+ * {@code location.changes.retention} are purged; a consumer that falls further behind must reload.
+ */
+@Slf4j
+@Component
+public class LocationChangeFeed {
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final LocationChangeRepository changeRepository;
+    private final LocationChangeLog changeLog;
+    private final LocationRepository locationRepository;
+    private final LocationReadRouting readRouting;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration retention;
+    private final int maxWaiters;
+    private final int retryAfterSeconds;
+    private final Queue<Waiter<?>> waiters = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService scheduler;
+    // Last sequence replayed into this node's read models, -1 until the application is ready
+    private volatile long appliedSeq = -1;
+
+    public LocationChangeFeed(LocationChangeRepository changeRepository, LocationChangeLog changeLog,
+                              LocationRepository locationRepository, LocationReadRouting readRouting,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${location.changes.retention:P7D}") Duration retention,
+                              @Value("${location.changes.poll-interval:PT1S}") Duration pollInterval,
+                              @Value("${location.changes.max-waiters:1000}") int maxWaiters,
+                              @Value("${location.api.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.changeRepository = changeRepository;
+        this.changeLog = changeLog;
+        this.locationRepository = locationRepository;
+        this.readRouting = readRouting;
+        this.eventPublisher = eventPublisher;
+        this.retention = retention;
+        this.maxWaiters = maxWaiters;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("location-changes").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::tick, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::purge, 1, 60, TimeUnit.MINUTES);
+    }
+
+    // Runs before the indexes rebuild, so a change committed during the rebuild is replayed rather than missed
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void startReplay() {
+        appliedSeq = latestSeq();
+    }
+
+    public long latestSeq() {
+        return changeLog.latestSeq();
+    }
+
+    /**
+     * False when changes after {@code since} have already been purged, so the consumer has missed some.
+     */
+    public boolean isRetained(long since) {
+        Long oldest = changeRepository.findOldestSeq();
+        return oldest != null ? since >= oldest - 1 : since >= latestSeq();
+    }
+
+    public LocationChangeBatch read(long since, int limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since must not be negative");
+        }
+        if (limit <= 0 || limit > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        // One extra row tells whether more are waiting
+        List<LocationChange> rows = changeRepository.findBySeqGreaterThanOrderBySeqAsc(since, PageRequest.of(0, limit + 1));
+        boolean hasMore = rows.size() > limit;
+        List<LocationChange> changes = hasMore ? rows.subList(0, limit) : rows;
+        return batch(changes, since, hasMore, currentRows(changes));
+    }
+
+    private static LocationChangeBatch batch(List<LocationChange> changes, long since, boolean hasMore,
+                                             Map<Long, Location> current) {
+        List<Location> locations = new ArrayList<>();
+        Set<Long> attached = new HashSet<>();
+        for (LocationChange change : changes) {
+            Location location = current.get(change.getLocationId());
+            if (change.getType() == LocationChangeType.UPSERTED && location != null && attached.add(location.getId())) {
+                locations.add(location);
+            }
+        }
+        long nextSince = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        return new LocationChangeBatch(changes, locations, nextSince, hasMore);
+    }
+
+    // A replica may not have the change yet, so the rows come from the primary
+    private Map<Long, Location> currentRows(List<LocationChange> changes) {
+        Set<Long> ids = new HashSet<>();
+        for (LocationChange change : changes) {
+            if (change.getType() == LocationChangeType.UPSERTED) {
+                ids.add(change.getLocationId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Location> rows = new HashMap<>();
+        for (Location location : readRouting.readFromPrimary(() -> locationRepository.findAllById(ids))) {
+            rows.put(location.getId(), location);
+        }
+        return rows;
+    }
+
+    /**
+     * Like {@link #read} but, when nothing is pending, holds the request for up to {@code wait} and answers as
+     * soon as a change arrives. Times out with an empty batch. {@code response} turns the batch into the result.
+     *
+     * @throws LocationOverloadedException when {@code location.changes.max-waiters} polls are already waiting
+     */
+    public <T> DeferredResult<T> poll(long since, int limit, Duration wait, Function<LocationChangeBatch, T> response) {
+        LocationChangeBatch batch = read(since, limit);
+        DeferredResult<T> result = new DeferredResult<>(wait.toMillis(),
+                () -> response.apply(new LocationChangeBatch(Collections.emptyList(), Collections.emptyList(), since, false)));
+        if (!batch.getChanges().isEmpty() || wait.isZero()) {
+            result.setResult(response.apply(batch));
+            return result;
+        }
+        if (waiters.size() >= maxWaiters) {
+            throw new LocationOverloadedException(retryAfterSeconds);
+        }
+        Waiter<T> waiter = new Waiter<>(since, limit, result, response);
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+        // Catch a change that committed between the read above and registering
+        requestWake();
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsChanged(LocationsChangedEvent event) {
+        requestWake();
+    }
+
+    private void requestWake() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        try {
+            scheduler.execute(this::wakeWaiters);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void tick() {
+        try {
+            changeLog.assignSequences();
+        } catch (RuntimeException e) {
+            log.warn("Failed to sequence location changes", e);
+        }
+        replayRemoteChanges();
+        wakeWaiters();
+    }
+
+    private void replayRemoteChanges() {
+        if (appliedSeq < 0) {
+            return;
+        }
+        try {
+            if (!isRetained(appliedSeq)) {
+                log.warn("Location changes after {} were purged before this node replayed them; restart it to rebuild its indexes", appliedSeq);
+                appliedSeq = latestSeq();
+                return;
+            }
+            List<LocationChange> rows;
+            do {
+                rows = changeRepository.findBySeqGreaterThanOrderBySeqAsc(appliedSeq, PageRequest.of(0, MAX_BATCH_SIZE));
+                List<LocationChange> remote = new ArrayList<>();
+                for (LocationChange change : rows) {
+                    if (!changeLog.getNodeId().equals(change.getOrigin())) {
+                        remote.add(change);
+                    }
+                }
+                if (!remote.isEmpty()) {
+                    List<Long> deletedIds = new ArrayList<>();
+                    for (LocationChange change : remote) {
+                        if (change.getType() == LocationChangeType.DELETED) {
+                            deletedIds.add(change.getLocationId());
+                        }
+                    }
+                    List<Location> saved = new ArrayList<>(currentRows(remote).values());
+                    eventPublisher.publishEvent(LocationsChangedEvent.remote(saved, deletedIds));
+                }
+                if (!rows.isEmpty()) {
+                    appliedSeq = rows.get(rows.size() - 1).getSeq();
+                }
+            } while (rows.size() == MAX_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("Failed to replay location changes from other nodes", e);
+        }
+    }
+
+    // Waiters sit at or near the head of the feed, so one read usually covers them all; a waiter past the end of
+    // a full read gets a read of its own
+    private void wakeWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        try {
+            long latest = latestSeq();
+            List<Waiter<?>> pending = new ArrayList<>();
+            for (Waiter<?> waiter : waiters) {
+                if (waiter.since < latest && !waiter.result.isSetOrExpired()) {
+                    pending.add(waiter);
+                }
+            }
+            pending.sort(Comparator.comparingLong(waiter -> waiter.since));
+            int next = 0;
+            while (next < pending.size()) {
+                long since = pending.get(next).since;
+                List<LocationChange> rows = changeRepository.findBySeqGreaterThanOrderBySeqAsc(since, PageRequest.of(0, MAX_BATCH_SIZE + 1));
+                boolean hasMore = rows.size() > MAX_BATCH_SIZE;
+                List<LocationChange> window = hasMore ? rows.subList(0, MAX_BATCH_SIZE) : rows;
+                if (window.isEmpty()) {
+                    return;
+                }
+                long windowEnd = window.get(window.size() - 1).getSeq();
+                Map<Long, Location> current = currentRows(window);
+                while (next < pending.size() && pending.get(next).since < windowEnd) {
+                    Waiter<?> waiter = pending.get(next++);
+                    int from = 0;
+                    while (window.get(from).getSeq() <= waiter.since) {
+                        from++;
+                    }
+                    int to = Math.min(window.size(), from + waiter.limit);
+                    waiter.deliver(batch(window.subList(from, to), waiter.since, to < window.size() || hasMore, current));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to deliver location changes to waiting polls", e);
+        }
+    }
+
+    // Purges a prefix of the sequence: changedAt follows each node's clock and is taken before sequencing,
+    // so deleting by time could drop a higher seq while a lower one stays, a gap isRetained would not see
+    private void purge() {
+        try {
+            Long purgeUpTo = changeRepository.findLatestSeqChangedBefore(Instant.now().minus(retention));
+            if (purgeUpTo == null) {
+                return;
+            }
+            int purged = changeRepository.deleteUpTo(purgeUpTo);
+            if (purged > 0) {
+                log.info("Purged {} location changes older than {}", purged, retention);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to purge old location changes", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @AllArgsConstructor
+    private static class Waiter<T> {
+        private final long since;
+        private final int limit;
+        private final DeferredResult<T> result;
+        private final Function<LocationChangeBatch, T> response;
+
+        void deliver(LocationChangeBatch batch) {
+            result.setResult(response.apply(batch));
+        }
+    }
+}
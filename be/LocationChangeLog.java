@@ -0,0 +1,152 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Write side of the location change outbox. Every {@link LocationsChangedEvent} is turned into
+ * {@link LocationChange} rows inside the publishing transaction, so the outbox commits or rolls back with the
+ * change. The rows only say which location changed and how; they get their sequence after commit from
+ * {@link #assignSequences()}, so location writers never wait on each other for the outbox.
+ */
+@Slf4j
+@Repository
+public class LocationChangeLog {
+    private static final int STAMP_BATCH_SIZE = 1000;
+    private static final String LOCK_SQL = "SELECT last_value FROM location_change_sequence WHERE id = 1 FOR UPDATE";
+    private static final String LAST_VALUE_SQL = "SELECT last_value FROM location_change_sequence WHERE id = 1";
+    private static final String ADVANCE_SQL = "UPDATE location_change_sequence SET last_value = ? WHERE id = 1";
+    private static final String SEED_SQL = "INSERT INTO location_change_sequence (id, last_value) "
+            + "SELECT 1, COALESCE(MAX(seq), 0) FROM location_change";
+    private static final String INSERT_SQL = "INSERT INTO location_change (location_id, type, changed_at, origin) VALUES (?, ?, ?, ?)";
+    private static final String STAMP_SQL = "UPDATE location_change SET seq = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LocationChangeRepository changeRepository;
+    private final TransactionTemplate stampTransaction;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public LocationChangeLog(JdbcTemplate jdbcTemplate, LocationChangeRepository changeRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeRepository = changeRepository;
+        // Also runs after the writer's commit, while its finished transaction is still bound to the thread
+        this.stampTransaction = new TransactionTemplate(transactionManager);
+        this.stampTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedSequence() {
+        if (jdbcTemplate.queryForList(LAST_VALUE_SQL, Long.class).isEmpty()) {
+            try {
+                jdbcTemplate.update(SEED_SQL);
+            } catch (DuplicateKeyException e) {
+                // Another node seeded it first
+            }
+        }
+    }
+
+    @EventListener
+    public void onLocationsChanged(LocationsChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            log.warn("Location change published outside a transaction; its outbox rows commit on their own");
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(event.getSaved().size() + event.getDeletedIds().size());
+        for (Location location : event.getSaved()) {
+            rows.add(new Object[]{location.getId(), LocationChangeType.UPSERTED.name(), now, nodeId});
+        }
+        for (Long id : event.getDeletedIds()) {
+            rows.add(new Object[]{id, LocationChangeType.DELETED.name(), now, nodeId});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    // Sequences the rows as soon as they are visible, so the version and the feed move right after the write
+    @TransactionalEventListener(fallbackExecution = true)
+    public void sequenceCommitted(LocationsChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        try {
+            assignSequences();
+        } catch (DataAccessException e) {
+            log.warn("Failed to sequence location changes; the change feed will retry", e);
+        }
+    }
+
+    /**
+     * Gives committed outbox rows that have no sequence yet the next sequences, in id order, in a short
+     * transaction of its own that holds the {@link LocationChangeSequence} row lock. Only committed rows are
+     * visible to it, so sequences follow commit order and never leave a gap a reader could skip past. Any node
+     * may call it; concurrent callers queue on the lock and find nothing left to do.
+     *
+     * @return how many rows were sequenced
+     */
+    public int assignSequences() {
+        int total = 0;
+        int stamped;
+        do {
+            stamped = stampTransaction.execute(status -> stampBatch());
+            total += stamped;
+        } while (stamped == STAMP_BATCH_SIZE);
+        return total;
+    }
+
+    private int stampBatch() {
+        List<Long> lastValue = jdbcTemplate.queryForList(LOCK_SQL, Long.class);
+        if (lastValue.isEmpty()) {
+            seedSequence();
+            lastValue = jdbcTemplate.queryForList(LOCK_SQL, Long.class);
+        }
+        List<Long> ids = changeRepository.findUnsequencedIds(PageRequest.of(0, STAMP_BATCH_SIZE));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long seq = lastValue.get(0);
+        List<Object[]> stamps = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            stamps.add(new Object[]{++seq, id});
+        }
+        jdbcTemplate.batchUpdate(STAMP_SQL, stamps);
+        jdbcTemplate.update(ADVANCE_SQL, seq);
+        return ids.size();
+    }
+
+    /**
+     * Identifies this node's rows in the outbox, so the feed only replays changes made elsewhere. New on every start.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Highest sequence handed out so far, including changes already purged from the outbox.
+     */
+    public long latestSeq() {
+        List<Long> values = jdbcTemplate.queryForList(LAST_VALUE_SQL, Long.class);
+        return values.isEmpty() ? 0L : values.get(0);
+    }
+}
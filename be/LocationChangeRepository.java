@@ -0,0 +1,29 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface LocationChangeRepository extends JpaRepository<LocationChange, Long> {
+    List<LocationChange> findBySeqGreaterThanOrderBySeqAsc(Long seq, Pageable pageable);
+
+    @Query("select c.id from LocationChange c where c.seq is null order by c.id")
+    List<Long> findUnsequencedIds(Pageable pageable);
+
+    @Query("select min(c.seq) from LocationChange c")
+    Long findOldestSeq();
+
+    @Query("select max(c.seq) from LocationChange c where c.changedAt < :cutoff")
+    Long findLatestSeqChangedBefore(@Param("cutoff") Instant cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("delete from LocationChange c where c.seq <= :seq")
+    int deleteUpTo(@Param("seq") Long seq);
+}
@@ -0,0 +1,29 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Single-row counter behind {@link LocationChange#getSeq()}. Only the short stamping transaction in
+ * {@link LocationChangeLog#assignSequences()} locks it, never the location writers themselves.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "location_change_sequence")
+public class LocationChangeSequence {
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long lastValue;
+}
@@ -0,0 +1,10 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+/**
+ * Kind of a {@link LocationChange}.
+ */
+public enum LocationChangeType {
+    /** Created, updated or imported; the change carries the location's values after the write. */
+    UPSERTED,
+    DELETED
+}
@@ -0,0 +1,31 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 over a location's name, address and coordinates, stored with the row so a sync import can tell
+ * unchanged rows apart without reading the address LOB. Values are hashed exactly as stored.
+ */
+public final class LocationContentHash {
+    private static final char SEPARATOR = '\u0000';
+
+    private LocationContentHash() {
+    }
+
+    public static String of(Location location) {
+        return of(location.getName(), location.getAddress(), location.getLatitude(), location.getLongitude());
+    }
+
+    public static String of(String name, String address, Double latitude, Double longitude) {
+        String content = String.valueOf(name) + SEPARATOR + address + SEPARATOR + latitude + SEPARATOR + longitude;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fills in {@code content_hash} for rows written before the column existed, in the background after startup.
+ * Until then a sync import sees such rows as changed and rewrites them. Only the hash column is touched, so the
+ * row version and ETags stay as they are, and the {@code IS NULL} guard lets several nodes run it at once.
+ */
+@Slf4j
+@Component
+public class LocationContentHashBackfill {
+    private static final int CHUNK_SIZE = 500;
+    private static final String UPDATE_SQL = "UPDATE location SET content_hash = ? WHERE id = ? AND content_hash IS NULL";
+
+    private final LocationRepository locationRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public LocationContentHashBackfill(LocationRepository locationRepository, JdbcTemplate jdbcTemplate) {
+        this.locationRepository = locationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        ExecutorService executor = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("location-hash-backfill").daemon().factory());
+        executor.execute(this::backfill);
+        executor.shutdown();
+    }
+
+    void backfill() {
+        long lastId = 0L;
+        long filled = 0;
+        try {
+            List<Location> chunk;
+            do {
+                chunk = locationRepository.findDetachedWithoutContentHashAfter(lastId, PageRequest.of(0, CHUNK_SIZE));
+                List<Object[]> hashes = new ArrayList<>(chunk.size());
+                for (Location location : chunk) {
+                    hashes.add(new Object[]{LocationContentHash.of(location), location.getId()});
+                    lastId = location.getId();
+                }
+                if (!hashes.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, hashes);
+                    filled += hashes.size();
+                }
+            } while (chunk.size() == CHUNK_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("Stopped filling in location content hashes after {} rows; the next start resumes", filled, e);
+            return;
+        }
+        if (filled > 0) {
+            log.info("Filled in the content hash of {} locations", filled);
+        }
+    }
+}
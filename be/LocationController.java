@@ -2,20 +2,27 @@ package com.example.hcm25_cpl_ks_java_01_lms.location;
 
 import com.example.hcm25_cpl_ks_java_01_lms.common.Constants;
 import com.example.hcm25_cpl_ks_java_01_lms.department.DepartmentController;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -23,28 +30,56 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
+@Slf4j
 @Controller
 @RequestMapping("/locations")
 @PreAuthorize("@customSecurityService.hasRoleForModule(authentication, 'Location')")
 public class LocationController {
     private final LocationService locationService;
+    private final LocationImportJobService locationImportJobService;
+    private final int printFetchSize;
 
-    public LocationController(LocationService locationService) {
+    public LocationController(LocationService locationService, LocationImportJobService locationImportJobService,
+                              @Value("${location.print.fetch-size:500}") int printFetchSize) {
         this.locationService = locationService;
+        this.locationImportJobService = locationImportJobService;
+        this.printFetchSize = printFetchSize;
     }
 
     @GetMapping
     public String listLocations(Model model,
                                 @RequestParam(defaultValue = "0") int page,
                                 @RequestParam(defaultValue = "10") int size,
-                                @RequestParam(required = false) String searchTerm) {
-        Page<Location> locations = locationService.getAllLocations(searchTerm, page, size);
-        model.addAttribute("locations", locations);
+                                @RequestParam(required = false) String searchTerm,
+                                WebRequest webRequest, HttpServletResponse response) {
+        // Flash messages are shown once, so a page carrying one must not be revalidated later
+        boolean revalidate = !model.containsAttribute("success") && !model.containsAttribute("error");
+        long version = locationService.getTableVersion();
+        if (revalidate) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+            if (webRequest.checkNotModified(viewEtag(version, webRequest))) {
+                return null;
+            }
+        }
+        LocationSnapshot<Page<LocationSummary>> locations =
+                locationService.getLocationSummarySnapshot(searchTerm, page, size, version);
+        if (revalidate) {
+            // Tag the page with the version of the database that served the rows, which may be a replica
+            response.setHeader(HttpHeaders.ETAG, viewEtag(locations.getVersion(), webRequest));
+        }
+        model.addAttribute("locations", locations.getData());
         model.addAttribute("content", "locations/list");
         return Constants.LAYOUT;
     }
 
+    // The page also embeds per-session parts (menu, CSRF token), hence the session in the tag
+    private static String viewEtag(long version, WebRequest webRequest) {
+        return "\"locations-view-" + version + "-" + Integer.toHexString(webRequest.getSessionId().hashCode()) + "\"";
+    }
+
     @GetMapping("/new")
     public String showCreateForm(Model model) {
         model.addAttribute("location", new Location());
@@ -82,6 +117,16 @@ public class LocationController {
             locationDetails.setId(id);
             locationService.updateLocation(locationDetails);
             return "redirect:/locations";
+        } catch (OptimisticLockingFailureException e) {
+            // Show what is stored now so the user edits the latest version
+            Location current = locationService.getLocationById(id);
+            if (current == null) {
+                return "redirect:/locations";
+            }
+            model.addAttribute("error", "This location was changed by someone else; review the current values and save again");
+            model.addAttribute("location", current);
+            model.addAttribute("content", "locations/update");
+            return Constants.LAYOUT;
         } catch (Exception e) {
             model.addAttribute("error", e.getMessage());
             model.addAttribute("location", locationDetails);
@@ -114,13 +159,29 @@ public class LocationController {
                     .body(new InputStreamResource(in));
                     
         } catch (Exception e) {
+            log.error("Location Excel export failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @GetMapping("/export/all")
+    public ResponseEntity<StreamingResponseBody> exportAllToExcel() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Content-Disposition", "attachment; filename=locations.xlsx");
+
+        StreamingResponseBody body = locationService::exportAllToExcel;
+        return ResponseEntity
+                .ok()
+                .headers(headers)
+                .contentType(MediaType.parseMediaType("application/vnd.ms-excel"))
+                .body(body);
+    }
+
     @PostMapping("/import")
     @PreAuthorize("hasAnyRole('Admin')")
-    public String importExcel(@RequestParam("file") MultipartFile file, Model model) {
+    public String importExcel(@RequestParam("file") MultipartFile file,
+                              @RequestParam(defaultValue = "SKIP") LocationImportMode mode,
+                              Model model, RedirectAttributes redirectAttributes) {
         model.addAttribute("content", "locations/list");
         if (file.isEmpty()) {
             model.addAttribute("error", "Please select a file to upload");
@@ -128,20 +189,24 @@ public class LocationController {
         }
 
         try {
-            List<Location> locations = LocationExcelImporter.importLocations(file.getInputStream());
-            locationService.saveAllFromExcel(locations);
-            model.addAttribute("success", "Successfully uploaded and imported data");
+            LocationImportJob job = locationImportJobService.submit(file, mode);
+            redirectAttributes.addFlashAttribute("success",
+                    "Import started in the background (job " + job.getId() + ")");
             return "redirect:/locations";
         } catch (IOException e) {
-            e.printStackTrace();
+            log.warn("Could not spool location import upload {}", file.getOriginalFilename(), e);
             model.addAttribute("error", "Failed to import data from file");
             return Constants.LAYOUT;
+        } catch (RejectedExecutionException e) {
+            model.addAttribute("error", "Too many imports in progress, please try again later");
+            return Constants.LAYOUT;
         }
     }
 
+    // Thymeleaf pulls rows from the iterator while it writes the page, so the table is never loaded at once
     @GetMapping("/print")
     public String printLocation(Model model) {
-        model.addAttribute("locations", locationService.getLocations("", 0, Integer.MAX_VALUE));
+        model.addAttribute("locations", locationService.iterateLocations(null, printFetchSize));
         return "locations/print";
     }
 
@@ -159,23 +224,26 @@ public class LocationController {
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
                     .body(resource);
         } catch (Exception e) {
+            log.error("Could not read the location import template", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     @PostMapping("/delete-all")
-    @Transactional
     public ResponseEntity<String> deleteSelectedLocations(@RequestBody LocationController.DeleteRequest deleteRequest, Model model) {
         try {
             List<Long> ids = deleteRequest.getIds();
             if (ids == null || ids.isEmpty()) {
                 return ResponseEntity.badRequest().body("No locations selected for deletion");
             }
-            for (Long id : ids) {
-                locationService.deleteLocation(id);
+            Map<Long, LocationDeleteOutcome> outcomes = locationService.deleteLocations(ids);
+            long referenced = outcomes.values().stream().filter(o -> o == LocationDeleteOutcome.REFERENCED).count();
+            if (referenced > 0) {
+                return ResponseEntity.ok("Locations deleted; " + referenced + " location(s) are still used and were kept");
             }
             return ResponseEntity.ok("Locations deleted successfully");
         } catch (Exception e) {
+            log.error("Bulk delete of locations failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Failed to delete locations: " + e.getMessage());
         }
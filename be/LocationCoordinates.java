@@ -0,0 +1,14 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+/**
+ * Id, name and position projection used to build the spatial index without reading the address LOB.
+ */
+public interface LocationCoordinates {
+    Long getId();
+
+    String getName();
+
+    Double getLatitude();
+
+    Double getLongitude();
+}
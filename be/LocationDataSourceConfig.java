@@ -0,0 +1,99 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends the location module's read-only transactions to replica databases once
+ * {@code location.datasource.replica.urls} is set; without it Spring Boot's single datasource and Hibernate
+ * settings are left alone. Everything below is gated by that one property.
+ * <p>
+ * Two things change for the whole application, not only for locations, because the application has a single
+ * datasource and a single persistence unit:
+ * <ul>
+ *     <li>The {@code @Primary} datasource becomes a {@link LazyConnectionDataSourceProxy} over the primary
+ *     ({@code spring.datasource.*}). The physical connection is only fetched at the first statement, when the
+ *     transaction's read-only flag and name are known. Read-only location transactions are served by
+ *     {@link LocationReplicaDataSource}. Other modules' transactions, writes, and reads inside a read-write
+ *     transaction still get a primary connection, just fetched a little later.</li>
+ *     <li>Hibernate gives its connection back after every transaction, for every module's sessions. By default it
+ *     holds it for the whole session, and with open-session-in-view a location lookup would leave the request's
+ *     later writes on a replica. The cost is one pool checkout per transaction instead of per request.</li>
+ * </ul>
+ * <p>
+ * Replicas share the primary's driver and credentials unless {@code location.datasource.replica.username}
+ * and {@code password} are set. To try it locally against two embedded databases, see
+ * {@code bench/README.md}.
+ */
+@Configuration
+@ConditionalOnProperty("location.datasource.replica.urls")
+public class LocationDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource locationPrimaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public LocationReplicaDataSource locationReplicaDataSource(
+            DataSourceProperties properties,
+            @Qualifier("locationPrimaryDataSource") DataSource primary,
+            LocationReadRouting readRouting,
+            @Value("${location.datasource.replica.urls}") List<String> urls,
+            @Value("${location.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${location.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${location.datasource.replica.max-pool-size:10}") int maxPoolSize,
+            @Value("${location.datasource.replica.connection-timeout:PT2S}") Duration connectionTimeout,
+            @Value("${location.datasource.replica.health-check-interval:PT5S}") Duration healthCheckInterval) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("location-replica-" + i);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(maxPoolSize);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            // Start even if a replica is down; the health check keeps it out of rotation until it answers
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new LocationReplicaDataSource(primary, replicas, readRouting, healthCheckInterval);
+    }
+
+    // Application-wide, see the class comment
+    @Bean
+    public HibernatePropertiesCustomizer locationReplicaConnectionRelease() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("locationPrimaryDataSource") DataSource primary,
+                                 LocationReplicaDataSource replicas) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicas);
+        return dataSource;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+/**
+ * Per-id result of a bulk delete.
+ */
+public enum LocationDeleteOutcome {
+    DELETED,
+    NOT_FOUND,
+    /** Still referenced by another record (e.g. a department), so it was kept. */
+    REFERENCED
+}
@@ -1,57 +1,158 @@
 package com.example.hcm25_cpl_ks_java_01_lms.location;
 
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * Reads locations from the first sheet of an .xlsx file with POI's event (SAX) API. Columns are name, address
+ * and optionally latitude and longitude.
+ * Rows are handed to the caller in batches, so memory is bounded by the batch size, not the file size.
+ */
 public class LocationExcelImporter {
-    public static List<Location> importLocations(InputStream inputStream) throws IOException, IOException {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    public static List<Location> importLocations(InputStream inputStream) throws IOException {
         List<Location> locations = new ArrayList<>();
-        Workbook workbook = new XSSFWorkbook(inputStream);
+        importLocations(inputStream, DEFAULT_BATCH_SIZE, locations::addAll);
+        return locations;
+    }
 
-        Sheet sheet = workbook.getSheetAt(0);
-        Iterator<Row> rows = sheet.iterator();
+    /**
+     * Spools the stream to a temp file (OPC needs random access to the zip) and imports it batch by batch.
+     *
+     * @return number of data rows passed to {@code batchConsumer}
+     */
+    public static int importLocations(InputStream inputStream, int batchSize,
+                                      Consumer<List<Location>> batchConsumer) throws IOException {
+        Path tempFile = Files.createTempFile("location-import-", ".xlsx");
+        try {
+            Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            return importLocations(tempFile.toFile(), batchSize, batchConsumer);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    public static int importLocations(File file, int batchSize,
+                                      Consumer<List<Location>> batchConsumer) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return 0;
+            }
+
+            LocationRowHandler handler = new LocationRowHandler(batchSize, batchConsumer);
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings, handler, new DataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+            handler.flush();
+            return handler.getRowCount();
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Failed to read Excel file", e);
+        }
+    }
 
-        int rowNumber = 0;
-        while (rows.hasNext()) {
-            Row currentRow = rows.next();
+    private static class LocationRowHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final int batchSize;
+        private final Consumer<List<Location>> batchConsumer;
+        private List<Location> batch;
+        private boolean headerSkipped;
+        private Location current;
+        private int currentCol;
+        private int rowCount;
+
+        LocationRowHandler(int batchSize, Consumer<List<Location>> batchConsumer) {
+            this.batchSize = batchSize;
+            this.batchConsumer = batchConsumer;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            currentCol = -1;
             // Skip header
-            if (rowNumber == 0) {
-                rowNumber++;
-                continue;
+            current = headerSkipped ? new Location() : null;
+            headerSkipped = true;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            currentCol = cellReference != null ? new CellReference(cellReference).getCol() : currentCol + 1;
+            if (current == null) {
+                return;
+            }
+            switch (currentCol) {
+                case 0:
+                    current.setName(formattedValue);
+                    break;
+                case 1:
+                    current.setAddress(formattedValue);
+                    break;
+                case 2:
+                    current.setLatitude(LocationTextImporter.parseCoordinate(formattedValue));
+                    break;
+                case 3:
+                    current.setLongitude(LocationTextImporter.parseCoordinate(formattedValue));
+                    break;
+                default:
+                    break;
             }
+        }
 
-            Iterator<Cell> cellsInRow = currentRow.iterator();
-
-            Location location = new Location();
-            int cellIdx = 0;
-            while (cellsInRow.hasNext()) {
-                Cell currentCell = cellsInRow.next();
-                switch (cellIdx) {
-                    case 0:
-                        location.setName(currentCell.getStringCellValue());
-                        break;
-                    case 1:
-                        location.setAddress(currentCell.getStringCellValue());
-                        break;
-                    default:
-                        break;
-                }
-                cellIdx++;
+        @Override
+        public void endRow(int rowNum) {
+            if (current == null || (current.getName() == null && current.getAddress() == null)) {
+                return;
+            }
+            batch.add(current);
+            rowCount++;
+            if (batch.size() >= batchSize) {
+                flush();
             }
+        }
 
-            locations.add(location);
+        void flush() {
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
         }
 
-        workbook.close();
-        return locations;
+        int getRowCount() {
+            return rowCount;
+        }
     }
 }
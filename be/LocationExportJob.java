@@ -0,0 +1,106 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of one background export. Jobs for the same search term and table version are shared.
+ */
+@Getter
+public class LocationExportJob {
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String searchTerm;
+    private final long tableVersion;
+    private final Instant createdAt = Instant.now();
+    @JsonIgnore
+    private final Path file;
+    private volatile Status status = Status.QUEUED;
+    private volatile int rows;
+    private volatile long sizeBytes;
+    private volatile String error;
+    private volatile Instant finishedAt;
+    @JsonIgnore
+    private volatile Instant lastDownloadAt;
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger openDownloads = new AtomicInteger();
+
+    LocationExportJob(String searchTerm, long tableVersion, Path file) {
+        this.searchTerm = searchTerm;
+        this.tableVersion = tableVersion;
+        this.file = file;
+    }
+
+    void start() {
+        status = Status.RUNNING;
+    }
+
+    void complete(int rows, long sizeBytes) {
+        this.rows = rows;
+        this.sizeBytes = sizeBytes;
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    void downloadStarted() {
+        lastDownloadAt = Instant.now();
+    }
+
+    // The file counts as in use until the stream is closed
+    InputStream openFile() throws IOException {
+        openDownloads.incrementAndGet();
+        try {
+            return new FilterInputStream(Files.newInputStream(file)) {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (!closed) {
+                        closed = true;
+                        openDownloads.decrementAndGet();
+                    }
+                    super.close();
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            openDownloads.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    /**
+     * True when the job finished and was last downloaded before {@code cutoff} and nobody is reading the file.
+     */
+    boolean isExpired(Instant cutoff) {
+        return isFinished() && finishedAt.isBefore(cutoff)
+                && (lastDownloadAt == null || lastDownloadAt.isBefore(cutoff))
+                && openDownloads.get() == 0;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates Excel exports in the background into temp files. Requests for the same search term while the
+ * table version is unchanged share one job, so concurrent clicks produce one workbook. Rows are selected the
+ * same way as the list search (see {@link LocationService#iterateLocations}). Finished files are kept for
+ * {@code location.export.result-ttl} after they finish or were last downloaded, and never deleted while a
+ * download is reading them.
+ */
+@Slf4j
+@Service
+public class LocationExportJobService {
+    private final LocationService locationService;
+    private final LocationVersion locationVersion;
+    private final ThreadPoolExecutor executor;
+    private final Duration resultTtl;
+    private final Map<String, LocationExportJob> jobsByKey = new ConcurrentHashMap<>();
+    private final Map<String, LocationExportJob> jobsById = new ConcurrentHashMap<>();
+
+    public LocationExportJobService(LocationService locationService, LocationVersion locationVersion,
+                                    LocationMetrics locationMetrics,
+                                    @Value("${location.export.max-concurrent:2}") int maxConcurrent,
+                                    @Value("${location.export.queue-capacity:20}") int queueCapacity,
+                                    @Value("${location.export.result-ttl:PT5M}") Duration resultTtl) {
+        this.locationService = locationService;
+        this.locationVersion = locationVersion;
+        this.resultTtl = resultTtl;
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofVirtual().name("location-export-", 0).factory());
+        locationMetrics.bindJobExecutor("export", executor);
+    }
+
+    /**
+     * Returns the running or cached job for this search term, or starts a new one.
+     *
+     * @throws RejectedExecutionException when the export queue is full
+     */
+    public LocationExportJob submit(String searchTerm) {
+        purgeExpiredJobs();
+        String term = searchTerm == null ? "" : searchTerm.trim();
+        long version = locationVersion.current();
+        String key = version + ":" + term;
+        return jobsByKey.compute(key, (k, existing) -> {
+            if (existing != null) {
+                if (existing.getStatus() != LocationExportJob.Status.FAILED) {
+                    return existing;
+                }
+                delete(existing);
+            }
+            LocationExportJob job = createJob(term, version);
+            try {
+                executor.execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                delete(job);
+                throw e;
+            }
+            jobsById.put(job.getId(), job);
+            return job;
+        });
+    }
+
+    public LocationExportJob getJob(String jobId) {
+        purgeExpiredJobs();
+        return jobsById.get(jobId);
+    }
+
+    /**
+     * Leases the finished file for one download. The file is not purged while the returned resource has a stream
+     * open, nor within {@code result-ttl} of this call, which also covers Tomcat's sendfile path where the file is
+     * opened after the handler returns.
+     */
+    public Resource openDownload(LocationExportJob job) {
+        job.downloadStarted();
+        return new FileSystemResource(job.getFile()) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return job.openFile();
+            }
+        };
+    }
+
+    private LocationExportJob createJob(String term, long version) {
+        try {
+            return new LocationExportJob(term, version, Files.createTempFile("location-export-", ".xlsx"));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create export file", e);
+        }
+    }
+
+    private void run(LocationExportJob job) {
+        job.start();
+        try (OutputStream out = Files.newOutputStream(job.getFile())) {
+            int rows = locationService.exportToExcel(out, job.getSearchTerm());
+            out.close();
+            job.complete(rows, Files.size(job.getFile()));
+        } catch (Exception e) {
+            log.warn("Location export job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        }
+    }
+
+    private void purgeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(resultTtl);
+        jobsByKey.values().removeIf(job -> job.isExpired(cutoff) && delete(job));
+    }
+
+    private boolean delete(LocationExportJob job) {
+        jobsById.remove(job.getId());
+        try {
+            Files.deleteIfExists(job.getFile());
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}", job.getFile(), e);
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        jobsByKey.values().forEach(this::delete);
+    }
+}
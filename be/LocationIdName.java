@@ -0,0 +1,10 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+/**
+ * Id/name projection used where the address LOB is not needed.
+ */
+public interface LocationIdName {
+    Long getId();
+
+    String getName();
+}
@@ -0,0 +1,70 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+/**
+ * Set of positive long ids in an open-addressing {@code long[]}: about 16 bytes per id, whatever the ids' range,
+ * and no boxing. Not thread-safe.
+ */
+final class LocationIdSet {
+    // Ids are positive, so 0 marks a free slot
+    private static final long FREE = 0L;
+
+    private long[] slots = new long[64];
+    private int size;
+
+    void add(long id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Ids must be positive: " + id);
+        }
+        if ((size + 1) * 2 > slots.length) {
+            grow();
+        }
+        if (insert(slots, id)) {
+            size++;
+        }
+    }
+
+    boolean contains(long id) {
+        int mask = slots.length - 1;
+        for (int i = slot(id, mask); ; i = (i + 1) & mask) {
+            long slot = slots[i];
+            if (slot == id) {
+                return true;
+            }
+            if (slot == FREE) {
+                return false;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] grown = new long[slots.length * 2];
+        for (long id : slots) {
+            if (id != FREE) {
+                insert(grown, id);
+            }
+        }
+        slots = grown;
+    }
+
+    private static boolean insert(long[] table, long id) {
+        int mask = table.length - 1;
+        for (int i = slot(id, mask); ; i = (i + 1) & mask) {
+            if (table[i] == id) {
+                return false;
+            }
+            if (table[i] == FREE) {
+                table[i] = id;
+                return true;
+            }
+        }
+    }
+
+    // Fibonacci hashing spreads sequential ids over the table
+    private static int slot(long id, int mask) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 33) & mask;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import java.util.Locale;
+
+/**
+ * Bulk file formats accepted by the import paths.
+ */
+public enum LocationImportFormat {
+    XLSX(".xlsx"),
+    CSV(".csv"),
+    NDJSON(".ndjson");
+
+    private final String extension;
+
+    LocationImportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Picks the format from the upload's file name, falling back to its content type, then to Excel.
+     */
+    public static LocationImportFormat detect(String fileName, String contentType) {
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv") || type.startsWith("text/csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || type.startsWith("application/x-ndjson")) {
+            return NDJSON;
+        }
+        return XLSX;
+    }
+}
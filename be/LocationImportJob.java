@@ -0,0 +1,97 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+/**
+ * State of one asynchronous import, as reported by {@code GET /api/locations/import/{jobId}}.
+ */
+@Getter
+public class LocationImportJob {
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    private static final int MAX_ERRORS = 100;
+
+    private final String id = UUID.randomUUID().toString();
+    private final String fileName;
+    private final LocationImportFormat format;
+    private final LocationImportMode mode;
+    private final Instant createdAt = Instant.now();
+    private final LocationImportResult result = new LocationImportResult();
+    @JsonIgnore
+    private final Path file;
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    @JsonIgnore
+    private volatile Future<?> future;
+
+    LocationImportJob(String fileName, LocationImportFormat format, LocationImportMode mode, Path file) {
+        this.fileName = fileName;
+        this.format = format;
+        this.mode = mode;
+        this.file = file;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * @return false if the job was cancelled while queued
+     */
+    synchronized boolean start() {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+        return true;
+    }
+
+    /**
+     * Marks a job that has not started yet as cancelled.
+     *
+     * @return false if it already started or finished
+     */
+    synchronized boolean cancelIfQueued() {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        result.cancel();
+        finish(Status.CANCELLED);
+        return true;
+    }
+
+    void finish(Status finalStatus) {
+        result.finish();
+        finishedAt = Instant.now();
+        status = finalStatus;
+    }
+
+    void addError(String message) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(message);
+        }
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+}
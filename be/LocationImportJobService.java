@@ -0,0 +1,136 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs imports (Excel, CSV or NDJSON, detected from the upload) off the request thread. Uploads are spooled to a temp file and processed on virtual
+ * threads; at most {@code location.import.max-concurrent} imports run at once and up to
+ * {@code location.import.queue-capacity} wait, beyond that submissions are rejected.
+ * Finished jobs are kept for {@code location.import.job-retention} so their result can still be polled.
+ */
+@Slf4j
+@Service
+public class LocationImportJobService {
+    private final LocationService locationService;
+    private final ThreadPoolExecutor executor;
+    private final Duration jobRetention;
+    private final Map<String, LocationImportJob> jobs = new ConcurrentHashMap<>();
+
+    public LocationImportJobService(LocationService locationService, LocationMetrics locationMetrics,
+                                    @Value("${location.import.max-concurrent:2}") int maxConcurrent,
+                                    @Value("${location.import.queue-capacity:10}") int queueCapacity,
+                                    @Value("${location.import.job-retention:PT1H}") Duration jobRetention) {
+        this.locationService = locationService;
+        this.jobRetention = jobRetention;
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofVirtual().name("location-import-", 0).factory());
+        locationMetrics.bindJobExecutor("import", executor);
+    }
+
+    /**
+     * @throws RejectedExecutionException when the import queue is full
+     */
+    public LocationImportJob submit(MultipartFile upload, LocationImportMode mode) throws IOException {
+        purgeExpiredJobs();
+        LocationImportFormat format = LocationImportFormat.detect(upload.getOriginalFilename(), upload.getContentType());
+        Path file = Files.createTempFile("location-import-", format.getExtension());
+        try {
+            upload.transferTo(file);
+            LocationImportJob job = new LocationImportJob(upload.getOriginalFilename(), format, mode, file);
+            jobs.put(job.getId(), job);
+            try {
+                job.setFuture(executor.submit(() -> run(job)));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.getId());
+                throw e;
+            }
+            return job;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    public LocationImportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Cancels a queued job immediately, taking it out of the queue so it no longer holds a slot, or a running one
+     * before its next batch.
+     *
+     * @return the job, or null if it does not exist
+     */
+    public LocationImportJob cancel(String jobId) {
+        LocationImportJob job = jobs.get(jobId);
+        if (job == null || job.isFinished()) {
+            return job;
+        }
+        if (job.cancelIfQueued()) {
+            Future<?> future = job.getFuture();
+            if (future != null) {
+                future.cancel(false);
+                executor.remove((Runnable) future);
+            }
+            deleteFile(job);
+        } else {
+            job.getResult().cancel();
+        }
+        return job;
+    }
+
+    private void run(LocationImportJob job) {
+        try {
+            if (!job.start()) {
+                return;
+            }
+            locationService.importLocations(job.getFile().toFile(), job.getFormat(), job.getMode(), job.getResult());
+            job.finish(LocationImportJob.Status.COMPLETED);
+        } catch (CancellationException e) {
+            job.finish(LocationImportJob.Status.CANCELLED);
+        } catch (Exception e) {
+            log.warn("Location import job {} failed", job.getId(), e);
+            job.addError(e.getMessage());
+            job.finish(LocationImportJob.Status.FAILED);
+        } finally {
+            deleteFile(job);
+        }
+    }
+
+    private static void deleteFile(LocationImportJob job) {
+        try {
+            Files.deleteIfExists(job.getFile());
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}", job.getFile(), e);
+        }
+    }
+
+    private void purgeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(job -> job.getResult().cancel());
+        executor.shutdown();
+    }
+}
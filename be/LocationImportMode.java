@@ -0,0 +1,27 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+/**
+ * What an import does with a row whose name already exists.
+ */
+public enum LocationImportMode {
+    /** Keep the existing location and count the row as skipped. */
+    SKIP,
+    /** Overwrite the existing location's address, and its coordinates when the row has them. */
+    UPSERT,
+    /** Abort the import. Batches committed before the duplicate are kept. */
+    FAIL,
+    /**
+     * Update the existing location only if its address or coordinates differ; unchanged rows are not written.
+     * A row without coordinates is compared on its address only and keeps the stored position.
+     */
+    SYNC,
+    /**
+     * Like {@link #SYNC}, then delete locations that are not in the file. Nothing is deleted when the import
+     * fails, is cancelled, reads no rows or rejects any row.
+     */
+    SYNC_DELETE;
+
+    public boolean isSync() {
+        return this == SYNC || this == SYNC_DELETE;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for one bulk import run. Safe to read from another thread while the import is running,
+ * which is how import jobs report progress.
+ */
+public class LocationImportResult {
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong parsed = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong updated = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong persistNanos = new AtomicLong();
+    private volatile long elapsedMillis = -1;
+    private volatile boolean cancelled;
+    private volatile boolean deletesSkipped;
+    // Sync state, only touched by the importing thread: ids of existing rows seen in the file (about 16 bytes
+    // per row seen, however large the ids) and the highest id before the first batch, so rows created meanwhile
+    // are never treated as missing
+    private final LocationIdSet syncSeenIds = new LocationIdSet();
+    private long syncMaxId = -1;
+
+    public long getParsed() {
+        return parsed.get();
+    }
+
+    public long getInserted() {
+        return inserted.get();
+    }
+
+    public long getUpdated() {
+        return updated.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Rows of a sync import that matched an existing location with the same content, so nothing was written.
+     */
+    public long getUnchanged() {
+        return unchanged.get();
+    }
+
+    /**
+     * Locations deleted by a sync import because the file no longer has them.
+     */
+    public long getDeleted() {
+        return deleted.get();
+    }
+
+    /**
+     * True when a sync import that should delete missing locations kept them for safety.
+     */
+    public boolean isDeletesSkipped() {
+        return deletesSkipped;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis >= 0 ? elapsedMillis : (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Time spent in database transactions; the rest of the elapsed time went to parsing and validating.
+     */
+    public long getPersistMillis() {
+        return persistNanos.get() / 1_000_000;
+    }
+
+    public long getParseMillis() {
+        return Math.max(0, getElapsedMillis() - getPersistMillis());
+    }
+
+    public double getRowsPerSecond() {
+        long written = getInserted() + getUpdated();
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? written : written * 1000.0 / elapsed;
+    }
+
+    void addParsed(long rows) {
+        parsed.addAndGet(rows);
+    }
+
+    void addInserted(long rows) {
+        inserted.addAndGet(rows);
+    }
+
+    void addUpdated(long rows) {
+        updated.addAndGet(rows);
+    }
+
+    void addSkipped(long rows) {
+        skipped.addAndGet(rows);
+    }
+
+    void addFailed(long rows) {
+        failed.addAndGet(rows);
+    }
+
+    void addUnchanged(long rows) {
+        unchanged.addAndGet(rows);
+    }
+
+    void addDeleted(long rows) {
+        deleted.addAndGet(rows);
+    }
+
+    void skipDeletes() {
+        deletesSkipped = true;
+    }
+
+    void markSyncSeen(long id) {
+        syncSeenIds.add(id);
+    }
+
+    boolean isSyncSeen(long id) {
+        return syncSeenIds.contains(id);
+    }
+
+    long getSyncMaxId() {
+        return syncMaxId;
+    }
+
+    void setSyncMaxId(long maxId) {
+        syncMaxId = maxId;
+    }
+
+    void addPersistNanos(long nanos) {
+        persistNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Asks the import to stop before its next batch; batches already committed are kept.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void finish() {
+        elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the location module. Every meter is registered up front and held in a field or
+ * enum-keyed map, so recording is a nanoTime difference plus an array/map read: no tags or meters are built
+ * per call. HTTP endpoint timings come from Spring Boot's {@code http.server.requests}.
+ */
+@Component
+public class LocationMetrics {
+    // Upper bounds (inclusive) of the search term length buckets; longer terms fall in the last bucket
+    private static final int[] TERM_LENGTH_BOUNDS = {0, 2, 5, 10};
+    private static final String[] TERM_LENGTH_TAGS = {"0", "1-2", "3-5", "6-10", "11+"};
+
+    public enum Operation {
+        GET_BY_ID, GET_BY_NAME, SLICE, CREATE, UPDATE, DELETE, BULK_DELETE, BATCH_SAVE,
+        DEPARTMENT_OPTIONS, OPTIONS_PAYLOAD, NEAREST, WITHIN
+    }
+
+    public enum SearchKind {
+        NAME, ADDRESS
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Operation, Timer> operationTimers = new EnumMap<>(Operation.class);
+    private final Map<SearchKind, Timer[]> searchTimers = new EnumMap<>(SearchKind.class);
+    private final Counter importParsed;
+    private final Counter importInserted;
+    private final Counter importUpdated;
+    private final Counter importSkipped;
+    private final Counter importUnchanged;
+    private final Counter importDeleted;
+    private final Counter importRejected;
+    private final Timer importParseTimer;
+    private final Timer importPersistTimer;
+    private final DistributionSummary importThroughput;
+    private final Map<LocationImportFormat, Counter> exportRows = new EnumMap<>(LocationImportFormat.class);
+    private final Map<LocationImportFormat, Counter> exportBytes = new EnumMap<>(LocationImportFormat.class);
+
+    public LocationMetrics(MeterRegistry registry, LocationReadCache locationReadCache, LocationApiExecutor apiExecutor) {
+        this.registry = registry;
+        for (Operation operation : Operation.values()) {
+            operationTimers.put(operation, Timer.builder("location.service")
+                    .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (SearchKind kind : SearchKind.values()) {
+            Timer[] timers = new Timer[TERM_LENGTH_TAGS.length];
+            for (int i = 0; i < timers.length; i++) {
+                timers[i] = Timer.builder("location.search")
+                        .description("List and search latency by search term length")
+                        .tag("kind", kind.name().toLowerCase(Locale.ROOT))
+                        .tag("termLength", TERM_LENGTH_TAGS[i])
+                        .publishPercentileHistogram()
+                        .register(registry);
+            }
+            searchTimers.put(kind, timers);
+        }
+
+        importParsed = importRows("parsed");
+        importInserted = importRows("inserted");
+        importUpdated = importRows("updated");
+        importSkipped = importRows("skipped");
+        importUnchanged = importRows("unchanged");
+        importDeleted = importRows("deleted");
+        importRejected = importRows("rejected");
+        importParseTimer = Timer.builder("location.import.time").tag("phase", "parse").register(registry);
+        importPersistTimer = Timer.builder("location.import.time").tag("phase", "persist").register(registry);
+        importThroughput = DistributionSummary.builder("location.import.throughput")
+                .description("Rows written per second, one sample per import")
+                .baseUnit("rows/s")
+                .register(registry);
+
+        for (LocationImportFormat format : LocationImportFormat.values()) {
+            String tag = format.name().toLowerCase(Locale.ROOT);
+            exportRows.put(format, Counter.builder("location.export.rows").tag("format", tag).register(registry));
+            exportBytes.put(format, Counter.builder("location.export.bytes").tag("format", tag).baseUnit("bytes").register(registry));
+        }
+
+        // Cache and in-flight gauges are read when the registry is scraped, not when requests run
+        for (String cache : locationReadCache.stats().keySet()) {
+            FunctionCounter.builder("location.cache.hits", locationReadCache, c -> c.stats().get(cache).getHits())
+                    .tag("cache", cache).register(registry);
+            FunctionCounter.builder("location.cache.misses", locationReadCache, c -> c.stats().get(cache).getMisses())
+                    .tag("cache", cache).register(registry);
+            FunctionCounter.builder("location.cache.evictions", locationReadCache, c -> c.stats().get(cache).getEvictions())
+                    .tag("cache", cache).register(registry);
+            Gauge.builder("location.cache.size", locationReadCache, c -> c.stats().get(cache).getSize())
+                    .tag("cache", cache).register(registry);
+        }
+        Gauge.builder("location.api.in_flight", apiExecutor, LocationApiExecutor::getInFlight).register(registry);
+    }
+
+    private Counter importRows(String outcome) {
+        return Counter.builder("location.import.rows").tag("outcome", outcome).register(registry);
+    }
+
+    /**
+     * Registers running and queued gauges for a job executor ({@code job} is "import" or "export").
+     */
+    public void bindJobExecutor(String job, ThreadPoolExecutor executor) {
+        Gauge.builder("location.jobs.running", executor, ThreadPoolExecutor::getActiveCount)
+                .tag("job", job).register(registry);
+        Gauge.builder("location.jobs.queued", executor, e -> e.getQueue().size())
+                .tag("job", job).register(registry);
+    }
+
+    public void record(Operation operation, long startNanos) {
+        operationTimers.get(operation).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSearch(SearchKind kind, String term, long startNanos) {
+        int length = term == null ? 0 : term.trim().length();
+        int bucket = 0;
+        while (bucket < TERM_LENGTH_BOUNDS.length && length > TERM_LENGTH_BOUNDS[bucket]) {
+            bucket++;
+        }
+        searchTimers.get(kind)[bucket].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordImport(LocationImportResult result) {
+        importParsed.increment(result.getParsed());
+        importInserted.increment(result.getInserted());
+        importUpdated.increment(result.getUpdated());
+        importSkipped.increment(result.getSkipped());
+        importUnchanged.increment(result.getUnchanged());
+        importDeleted.increment(result.getDeleted());
+        importRejected.increment(result.getFailed());
+        importParseTimer.record(result.getParseMillis(), TimeUnit.MILLISECONDS);
+        importPersistTimer.record(result.getPersistMillis(), TimeUnit.MILLISECONDS);
+        importThroughput.record(result.getRowsPerSecond());
+    }
+
+    public void recordExport(LocationImportFormat format, long rows, long bytes) {
+        exportRows.get(format).increment(rows);
+        exportBytes.get(format).increment(bytes);
+    }
+
+    /**
+     * Passes writes through and counts the bytes, for the export size metric.
+     */
+    static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over normalized location names. It is built once at startup and then kept
+ * current from {@link LocationsChangedEvent}s, so substring search never reaches the database.
+ * Hits are ranked: name starts with the term, then a word starts with it, then any other match. Terms shorter
+ * than a trigram only match the start of a word, looked up in a map of one- and two-character word prefixes.
+ * Posting lists are sorted {@code long[]}s rather than sets of boxed ids.
+ * Each node keeps its own copy. Writes made on other nodes arrive as remote events replayed from the change
+ * outbox by {@link LocationChangeFeed}, so they show up here within about one poll interval.
+ */
+@Slf4j
+@Component
+public class LocationNameIndex {
+    private static final int GRAM = 3;
+    private static final int REBUILD_CHUNK_SIZE = 5000;
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::getRank)
+            .thenComparing(Hit::getName)
+            .thenComparing(Hit::getId);
+
+    private final LocationRepository locationRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<String, IdList> postings = new HashMap<>();
+    private final Map<String, IdList> wordPrefixes = new HashMap<>();
+    private volatile boolean ready;
+
+    public LocationNameIndex(LocationRepository locationRepository) {
+        this.locationRepository = locationRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            names.clear();
+            postings.clear();
+            wordPrefixes.clear();
+            long lastId = 0L;
+            List<LocationIdName> chunk;
+            do {
+                chunk = locationRepository.findIdNamesAfter(lastId, PageRequest.of(0, REBUILD_CHUNK_SIZE));
+                for (LocationIdName location : chunk) {
+                    put(location.getId(), location.getName());
+                    lastId = location.getId();
+                }
+            } while (chunk.size() == REBUILD_CHUNK_SIZE);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Location name index built with {} names in {} ms", names.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsChanged(LocationsChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : event.getDeletedIds()) {
+                remove(id);
+            }
+            for (Location location : event.getSaved()) {
+                remove(location.getId());
+                put(location.getId(), location.getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the ids of the ranked hits in {@code [offset, offset + limit)} plus the total hit count.
+     * Terms shorter than a trigram match names with a word that starts with them.
+     */
+    public SearchHits search(String term, int offset, int limit) {
+        String query = LocationTextNormalizer.normalize(term);
+        int window = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        PriorityQueue<Hit> best = new PriorityQueue<>(Math.max(1, Math.min(window, 1024)), RANKING.reversed());
+        long total = 0;
+
+        lock.readLock().lock();
+        try {
+            for (long id : candidates(query)) {
+                String name = names.get(id);
+                if (name == null || !name.contains(query)) {
+                    continue;
+                }
+                total++;
+                Hit hit = new Hit(id, name, rank(name, query));
+                if (best.size() < window) {
+                    best.add(hit);
+                } else if (window > 0 && RANKING.compare(hit, best.peek()) < 0) {
+                    best.poll();
+                    best.add(hit);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        List<Long> ids = new ArrayList<>(Math.max(0, ranked.size() - offset));
+        for (int i = offset; i < ranked.size(); i++) {
+            ids.add(ranked.get(i).getId());
+        }
+        return new SearchHits(ids, total);
+    }
+
+    /**
+     * Ids of every location {@link #search} would return for {@code term}, in ascending order.
+     */
+    public long[] matchingIds(String term) {
+        String query = LocationTextNormalizer.normalize(term);
+        lock.readLock().lock();
+        try {
+            // Candidates come out of sorted posting lists, so filtering in place keeps them sorted
+            long[] ids = candidates(query);
+            int count = 0;
+            for (long id : ids) {
+                String name = names.get(id);
+                if (name != null && name.contains(query)) {
+                    ids[count++] = id;
+                }
+            }
+            return Arrays.copyOf(ids, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] candidates(String query) {
+        if (query.length() < GRAM) {
+            IdList ids = wordPrefixes.get(query);
+            return ids == null ? new long[0] : ids.toArray();
+        }
+        List<IdList> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            IdList ids = postings.get(gram);
+            if (ids == null) {
+                return new long[0];
+            }
+            lists.add(ids);
+        }
+        // Walk the rarest trigram and probe the others
+        lists.sort(Comparator.comparingInt(IdList::size));
+        IdList rarest = lists.get(0);
+        long[] result = new long[rarest.size()];
+        int count = 0;
+        next:
+        for (int i = 0; i < rarest.size(); i++) {
+            long id = rarest.get(i);
+            for (int j = 1; j < lists.size(); j++) {
+                if (!lists.get(j).contains(id)) {
+                    continue next;
+                }
+            }
+            result[count++] = id;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int rank(String name, String query) {
+        if (name.startsWith(query)) {
+            return 0;
+        }
+        return name.contains(" " + query) ? 1 : 2;
+    }
+
+    private void put(Long id, String name) {
+        String normalized = LocationTextNormalizer.normalize(name);
+        names.put(id, normalized);
+        for (String gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, key -> new IdList()).add(id);
+        }
+        for (String prefix : wordPrefixes(normalized)) {
+            wordPrefixes.computeIfAbsent(prefix, key -> new IdList()).add(id);
+        }
+    }
+
+    private void remove(Long id) {
+        String normalized = names.remove(id);
+        if (normalized == null) {
+            return;
+        }
+        removeFrom(postings, grams(normalized), id);
+        removeFrom(wordPrefixes, wordPrefixes(normalized), id);
+    }
+
+    private static void removeFrom(Map<String, IdList> lists, Set<String> keys, long id) {
+        for (String key : keys) {
+            IdList ids = lists.get(key);
+            if (ids != null && ids.remove(id) && ids.size() == 0) {
+                lists.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static Set<String> wordPrefixes(String text) {
+        Set<String> prefixes = new HashSet<>();
+        for (String word : text.split(" ")) {
+            for (int length = 1; length < GRAM && length <= word.length(); length++) {
+                prefixes.add(word.substring(0, length));
+            }
+        }
+        return prefixes;
+    }
+
+    // Sorted ids of one posting list. New locations get the highest ids, so adding is usually an append
+    private static final class IdList {
+        private long[] ids = new long[2];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        long get(int index) {
+            return ids[index];
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void add(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + Math.max(2, size >> 1));
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            if (size > 2 && size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            return true;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Hit {
+        private final Long id;
+        private final String name;
+        private final int rank;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SearchHits {
+        private final List<Long> ids;
+        private final long total;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A location found by a spatial query, with its great-circle distance from the query point.
+ */
+@Getter
+@AllArgsConstructor
+public class LocationNearby {
+    private final Long id;
+    private final String name;
+    private final double latitude;
+    private final double longitude;
+    private final double distanceKm;
+}
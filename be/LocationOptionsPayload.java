@@ -0,0 +1,18 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Pre-serialized id/name list for dropdowns, tagged with the table version it was built from.
+ */
+@Getter
+@AllArgsConstructor
+public class LocationOptionsPayload {
+    private final long version;
+    private final byte[] json;
+
+    public String getEtag() {
+        return "\"locations-" + version + "\"";
+    }
+}
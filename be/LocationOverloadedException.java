@@ -0,0 +1,17 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+/**
+ * Thrown when too many location API requests are already running or waiting; mapped to 429 with Retry-After.
+ */
+public class LocationOverloadedException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public LocationOverloadedException(int retryAfterSeconds) {
+        super("Too many requests, please retry later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
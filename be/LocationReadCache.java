@@ -0,0 +1,88 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through caches for location lookups. Entries are invalidated from {@link LocationsChangedEvent}
+ * after commit, so only the rows that were written are evicted; writes on other nodes arrive as remote events
+ * from the change feed within about one poll interval, and the TTL is only a backstop. The department options
+ * and the options payload are keyed on the database-backed {@link LocationVersion}, so a write on any node
+ * replaces them at the next request. Cached entities are copied on the way in and out so callers can't modify
+ * shared state.
+ */
+@Component
+public class LocationReadCache {
+    private final LocationCache<Long, Location> byId;
+    private final LocationCache<String, Location> byName;
+    private final LocationCache<Long, List<Map<String, Object>>> departmentOptions;
+    private volatile LocationOptionsPayload optionsPayload;
+
+    public LocationReadCache(@Value("${location.cache.max-size:10000}") int maxSize,
+                             @Value("${location.cache.ttl:PT10M}") Duration ttl) {
+        this.byId = new LocationCache<>(maxSize, ttl);
+        this.byName = new LocationCache<>(maxSize, ttl);
+        this.departmentOptions = new LocationCache<>(1, ttl);
+    }
+
+    public Location getById(Long id, Function<Long, Location> loader) {
+        return copy(byId.get(id, key -> copy(loader.apply(key))));
+    }
+
+    public Location getByName(String name, Function<String, Location> loader) {
+        return copy(byName.get(name, key -> copy(loader.apply(key))));
+    }
+
+    // Keyed on the table version like the options payload; the single slot drops the previous version
+    public List<Map<String, Object>> getDepartmentOptions(long version, Supplier<List<Map<String, Object>>> loader) {
+        return departmentOptions.get(version, key -> loader.get());
+    }
+
+    public LocationOptionsPayload getOptionsPayload(long version, Supplier<LocationOptionsPayload> loader) {
+        LocationOptionsPayload payload = optionsPayload;
+        if (payload == null || payload.getVersion() != version) {
+            payload = loader.get();
+            // A slow load of an older version must not replace a newer payload
+            LocationOptionsPayload current = optionsPayload;
+            if (current == null || current.getVersion() < payload.getVersion()) {
+                optionsPayload = payload;
+            }
+        }
+        return payload;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsChanged(LocationsChangedEvent event) {
+        Set<Long> ids = new HashSet<>(event.getDeletedIds());
+        for (Location location : event.getSaved()) {
+            ids.add(location.getId());
+            byName.invalidate(location.getName());
+        }
+        ids.forEach(byId::invalidate);
+        // A rename leaves the old name cached under the same id
+        byName.invalidateIf(location -> ids.contains(location.getId()));
+        departmentOptions.invalidateAll();
+    }
+
+    public Map<String, LocationCache.Stats> stats() {
+        Map<String, LocationCache.Stats> stats = new LinkedHashMap<>();
+        stats.put("byId", byId.stats());
+        stats.put("byName", byName.stats());
+        stats.put("departmentOptions", departmentOptions.stats());
+        return stats;
+    }
+
+    private static Location copy(Location location) {
+        return location == null ? null : location.toBuilder().build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether a read-only query may go to a replica (see {@link LocationReplicaDataSource}). Only read-only
+ * transactions started by the location module qualify, recognised by a transaction name in this package
+ * ({@code @Transactional} methods of its beans, or templates named after them); every other module keeps reading
+ * the primary exactly as before. A user who just wrote is pinned to the primary for
+ * {@code location.datasource.replica.sticky-window}, so they read their own writes despite replication lag.
+ * Reads whose result gets cached or tagged with the table version can also ask for the primary for that long
+ * after any local write, so a lagging replica can't leave a stale row behind a fresh ETag or cache entry.
+ * Keep the window above the replicas' usual lag. Without replicas configured nothing consults this.
+ */
+@Component
+public class LocationReadRouting {
+    private final long stickyNanos;
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+    private static final String LOCATION_TRANSACTIONS = LocationReadRouting.class.getPackageName() + ".";
+
+    private final ThreadLocal<Boolean> primaryRequired = new ThreadLocal<>();
+    private volatile long freshUntil = System.nanoTime();
+
+    public LocationReadRouting(@Value("${location.datasource.replica.sticky-window:PT5S}") Duration stickyWindow) {
+        this.stickyNanos = stickyWindow.toNanos();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsChanged(LocationsChangedEvent event) {
+        if (event.isRemote()) {
+            // Written on another node: its users are pinned there, and the replicas may well have it already
+            return;
+        }
+        long now = System.nanoTime();
+        freshUntil = now + stickyNanos;
+        String user = currentUser();
+        if (user != null) {
+            pinnedUntil.values().removeIf(until -> until - now <= 0);
+            pinnedUntil.put(user, now + stickyNanos);
+        }
+    }
+
+    /**
+     * True when the current transaction belongs to the location module and neither {@link #readFreshAfterWrite}
+     * during a sticky window, {@link #readFromPrimary}, nor a recent write by the current user asks for the primary.
+     */
+    public boolean isReplicaAllowed() {
+        String transaction = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transaction == null || !transaction.startsWith(LOCATION_TRANSACTIONS)
+                || Boolean.TRUE.equals(primaryRequired.get())) {
+            return false;
+        }
+        String user = currentUser();
+        if (user == null) {
+            return true;
+        }
+        Long until = pinnedUntil.get(user);
+        return until == null || until - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Runs {@code read} against the primary if this node committed a write within the sticky window, otherwise
+     * lets it be routed as usual. The connection must not have been fetched yet, so call it before the first
+     * query of the transaction.
+     */
+    public <T> T readFreshAfterWrite(Supplier<T> read) {
+        if (freshUntil - System.nanoTime() <= 0 || Boolean.TRUE.equals(primaryRequired.get())) {
+            return read.get();
+        }
+        primaryRequired.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            primaryRequired.remove();
+        }
+    }
+
+    /**
+     * Runs {@code read} against the primary, for reads that must see every committed change. Same rule as
+     * {@link #readFreshAfterWrite}: call it before the first query of the transaction.
+     */
+    public <T> T readFromPrimary(Supplier<T> read) {
+        if (Boolean.TRUE.equals(primaryRequired.get())) {
+            return read.get();
+        }
+        primaryRequired.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            primaryRequired.remove();
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
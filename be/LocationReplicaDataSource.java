@@ -0,0 +1,118 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only side of the datasource routing set up by {@link LocationDataSourceConfig}. Hands out connections
+ * from the replicas in turn, skipping any that failed their last health check, and falls back to the primary
+ * when none is usable or when {@link LocationReadRouting} does not allow a replica: outside the location module,
+ * or when the caller must see recent writes.
+ * A replica that fails to give a connection is taken out at once; the health check brings it back.
+ */
+@Slf4j
+public class LocationReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final LocationReadRouting readRouting;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+
+    public LocationReplicaDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                     LocationReadRouting readRouting, Duration healthCheckInterval) {
+        this.primary = primary;
+        this.readRouting = readRouting;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("location-replica-health").daemon().factory());
+        long intervalMillis = healthCheckInterval.toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!readRouting.isReplicaAllowed()) {
+            return primary.getConnection();
+        }
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                markHealthy(replica, false, e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    public int getHealthyReplicaCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                markHealthy(replica, connection.isValid(VALIDATION_TIMEOUT_SECONDS), null);
+            } catch (SQLException e) {
+                markHealthy(replica, false, e);
+            }
+        }
+    }
+
+    private void markHealthy(Replica replica, boolean healthy, SQLException cause) {
+        if (replica.healthy == healthy) {
+            return;
+        }
+        replica.healthy = healthy;
+        if (healthy) {
+            log.info("Location replica {} is back, routing read-only queries to it", replica.name);
+        } else {
+            log.warn("Location replica {} is unavailable, reading from the other replicas or the primary: {}",
+                    replica.name, cause != null ? cause.getMessage() : "connection not valid");
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
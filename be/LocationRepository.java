@@ -4,10 +4,74 @@ import com.example.hcm25_cpl_ks_java_01_lms.course.Course;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface LocationRepository extends JpaRepository<Location, Long> {
+    int ADDRESS_PREVIEW_LENGTH = 120;
+
     Page<Location> findByNameContainingIgnoreCase(String searchTerm, Pageable pageable);
+    @Transactional(readOnly = true)
     Optional<Location> findByName(String name);
+    List<LocationIdName> findByNameIn(Collection<String> names);
+    List<Location> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    List<Location> findByNameContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(String searchTerm, Long id, Pageable pageable);
+
+    // Detached copies for streaming: constructor results never enter the persistence context
+    String DETACHED_LOCATION = "select new com.example.hcm25_cpl_ks_java_01_lms.location.Location("
+            + "l.id, l.name, l.address, l.latitude, l.longitude, l.contentHash, l.version) from Location l ";
+
+    @Query(DETACHED_LOCATION + "where l.id > :afterId order by l.id")
+    List<Location> findDetachedAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(DETACHED_LOCATION + "where lower(l.name) like lower(concat('%', :searchTerm, '%')) and l.id > :afterId order by l.id")
+    List<Location> findDetachedByNameContainingAfter(@Param("searchTerm") String searchTerm, @Param("afterId") Long afterId,
+                                                     Pageable pageable);
+
+    @Query(DETACHED_LOCATION + "where l.contentHash is null and l.id > :afterId order by l.id")
+    List<Location> findDetachedWithoutContentHashAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(DETACHED_LOCATION + "where l.id in :ids order by l.id")
+    List<Location> findDetachedByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select l.id as id, l.name as name, substring(l.address, 1, " + ADDRESS_PREVIEW_LENGTH + ") as addressPreview from Location l",
+            countQuery = "select count(l) from Location l")
+    Page<LocationSummary> findSummaries(Pageable pageable);
+
+    @Query(value = "select l.id as id, l.name as name, substring(l.address, 1, " + ADDRESS_PREVIEW_LENGTH + ") as addressPreview from Location l "
+            + "where lower(l.name) like lower(concat('%', :searchTerm, '%'))",
+            countQuery = "select count(l) from Location l where lower(l.name) like lower(concat('%', :searchTerm, '%'))")
+    Page<LocationSummary> findSummariesByNameContaining(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query("select l.id as id, l.name as name, substring(l.address, 1, " + ADDRESS_PREVIEW_LENGTH + ") as addressPreview from Location l where l.id in :ids")
+    List<LocationSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    @Query("select l.id as id, l.name as name from Location l order by l.id")
+    List<LocationIdName> findAllIdNames();
+
+    @Query("select l.id as id, l.name as name, l.latitude as latitude, l.longitude as longitude from Location l where l.name in :names")
+    List<LocationCoordinates> findCoordinatesByNameIn(@Param("names") Collection<String> names);
+
+    @Query("select l.id as id, l.name as name, l.latitude as latitude, l.longitude as longitude, " +
+            "l.contentHash as contentHash from Location l where l.name in :names")
+    List<LocationSyncState> findSyncStatesByNameIn(@Param("names") Collection<String> names);
+
+    @Query("select coalesce(max(l.id), 0) from Location l")
+    long findMaxId();
+
+    @Query("select l.id from Location l where l.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select l.id as id, l.name as name from Location l where l.id > :afterId order by l.id")
+    List<LocationIdName> findIdNamesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select l.id as id, l.name as name, l.latitude as latitude, l.longitude as longitude from Location l " +
+            "where l.id > :afterId and l.latitude is not null and l.longitude is not null order by l.id")
+    List<LocationCoordinates> findCoordinatesAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -2,67 +2,568 @@ package com.example.hcm25_cpl_ks_java_01_lms.location;
 
 import com.example.hcm25_cpl_ks_java_01_lms.department.Department;
 import com.example.hcm25_cpl_ks_java_01_lms.role.RoleRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.DeferredSXSSFSheet;
+import org.apache.poi.xssf.streaming.DeferredSXSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class LocationService {
+    // Rows per JDBC batch and per commit when bulk importing
+    public static final int IMPORT_COMMIT_SIZE = LocationExcelImporter.DEFAULT_BATCH_SIZE;
+
+    // Rows read per query and rows kept in memory by SXSSF when exporting the whole table
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+    private static final int EXPORT_ROW_WINDOW = 100;
+    private static final String[] EXCEL_HEADERS = {"ID", "Name", "Address", "Latitude", "Longitude"};
+    public static final int MAX_SLICE_LIMIT = 500;
+    public static final int MAX_NEAREST = 100;
+    private static final String INVALID_COORDINATES =
+            "Latitude and longitude must be given together, latitude within [-90, 90] and longitude within [-180, 180]";
+    public static final int DELETE_CHUNK_SIZE = 500;
+
     private final LocationRepository locationRepository;
     private final RoleRepository roleRepository;
+    private final LocationBatchWriter locationBatchWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final LocationNameIndex locationNameIndex;
+    private final LocationAddressIndex locationAddressIndex;
+    private final LocationSpatialIndex locationSpatialIndex;
+    private final LocationReadCache locationReadCache;
+    private final LocationReadRouting locationReadRouting;
+    private final LocationVersion locationVersion;
+    private final LocationTextExporter locationTextExporter;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LocationMetrics locationMetrics;
 
     @Autowired
-    public LocationService(LocationRepository locationRepository, RoleRepository roleRepository) {
+    public LocationService(LocationRepository locationRepository, RoleRepository roleRepository,
+                           LocationBatchWriter locationBatchWriter,
+                           PlatformTransactionManager transactionManager, LocationNameIndex locationNameIndex,
+                           LocationAddressIndex locationAddressIndex, LocationSpatialIndex locationSpatialIndex,
+                           LocationReadCache locationReadCache, LocationReadRouting locationReadRouting,
+                           LocationVersion locationVersion, LocationTextExporter locationTextExporter,
+                           ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                           LocationMetrics locationMetrics) {
         this.locationRepository = locationRepository;
         this.roleRepository = roleRepository;
+        this.locationBatchWriter = locationBatchWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Named into this package so LocationReadRouting lets it use a replica
+        this.readOnlyTransaction.setName(LocationService.class.getName() + ".readOnly");
+        this.locationNameIndex = locationNameIndex;
+        this.locationAddressIndex = locationAddressIndex;
+        this.locationSpatialIndex = locationSpatialIndex;
+        this.locationReadCache = locationReadCache;
+        this.locationReadRouting = locationReadRouting;
+        this.locationVersion = locationVersion;
+        this.locationTextExporter = locationTextExporter;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.locationMetrics = locationMetrics;
     }
 
+    @Transactional(readOnly = true)
     public Page<Location> getAllLocations(String searchTerm, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        if (searchTerm != null && !searchTerm.isEmpty()) {
+        long start = System.nanoTime();
+        try {
+            Pageable pageable = PageRequest.of(page, size);
+            if (searchTerm != null && !searchTerm.isEmpty()) {
+                return searchByName(searchTerm, pageable);
+            }
+            return locationRepository.findAll(pageable);
+        } finally {
+            locationMetrics.recordSearch(LocationMetrics.SearchKind.NAME, searchTerm, start);
+        }
+    }
+
+    /**
+     * Same paging and search as {@link #getAllLocations} but returns {@link LocationSummary} rows, which carry
+     * only a short address preview. Used by the list views; load the entity for the full address.
+     * Reads the primary right after a local write, since the views tag the result with the table version.
+     */
+    @Transactional(readOnly = true)
+    public Page<LocationSummary> getLocationSummaries(String searchTerm, int page, int size) {
+        long start = System.nanoTime();
+        try {
+            Pageable pageable = PageRequest.of(page, size);
+            return locationReadRouting.readFreshAfterWrite(() -> {
+                if (searchTerm == null || searchTerm.trim().isEmpty()) {
+                    return locationRepository.findSummaries(pageable);
+                }
+                if (!locationNameIndex.isReady()) {
+                    return locationRepository.findSummariesByNameContaining(searchTerm.trim(), pageable);
+                }
+                LocationNameIndex.SearchHits hits = locationNameIndex.search(searchTerm,
+                        (int) pageable.getOffset(), pageable.getPageSize());
+                return loadPage(hits.getIds(), pageable, hits.getTotal(),
+                        locationRepository::findSummariesByIdIn, LocationSummary::getId);
+            });
+        } finally {
+            locationMetrics.recordSearch(LocationMetrics.SearchKind.NAME, searchTerm, start);
+        }
+    }
+
+    // Served from the name index once it is built; falls back to LIKE during startup
+    private Page<Location> searchByName(String searchTerm, Pageable pageable) {
+        if (!locationNameIndex.isReady()) {
             return locationRepository.findByNameContainingIgnoreCase(searchTerm, pageable);
         }
-        return locationRepository.findAll(pageable);
+        LocationNameIndex.SearchHits hits = locationNameIndex.search(searchTerm,
+                (int) pageable.getOffset(), pageable.getPageSize());
+        return loadPage(hits.getIds(), pageable, hits.getTotal(), locationRepository::findAllById, Location::getId);
+    }
+
+    /**
+     * {@link #getLocationSummaries} with the version its rows are at, for tagging them. {@code minVersion} is
+     * the version the caller already read from the primary; a replica that has not caught up with it is bypassed.
+     */
+    public LocationSnapshot<Page<LocationSummary>> getLocationSummarySnapshot(String searchTerm, int page, int size,
+                                                                              long minVersion) {
+        return snapshot(minVersion, () -> getLocationSummaries(searchTerm, page, size));
+    }
+
+    // The version is read first, on the same connection as the data, so a lagging replica gives an older
+    // version rather than a current tag on stale rows
+    private <T> LocationSnapshot<T> snapshot(long minVersion, Supplier<T> read) {
+        Supplier<LocationSnapshot<T>> versioned = () -> readOnlyTransaction.execute(status ->
+                new LocationSnapshot<>(locationVersion.current(), read.get()));
+        LocationSnapshot<T> snapshot = locationReadRouting.readFreshAfterWrite(versioned);
+        if (snapshot.getVersion() >= minVersion) {
+            return snapshot;
+        }
+        // Behind what the client may already hold: answer from the primary instead
+        return locationReadRouting.readFromPrimary(versioned);
+    }
+
+    /**
+     * Finds locations whose address contains every word of {@code query} (accents ignored, last word
+     * may be partial). Served only from the address index; the LOB column is never scanned.
+     */
+    @Transactional(readOnly = true)
+    public Page<LocationSummary> searchByAddress(String query, int page, int size) {
+        long start = System.nanoTime();
+        try {
+            if (page < 0 || size <= 0) {
+                throw new IllegalArgumentException("Invalid page or size parameters");
+            }
+            if (!locationAddressIndex.isReady()) {
+                throw new IllegalStateException("Address index is still loading");
+            }
+            Pageable pageable = PageRequest.of(page, size);
+            List<Long> ids = locationAddressIndex.search(query);
+            int from = (int) Math.min(pageable.getOffset(), ids.size());
+            int to = (int) Math.min((long) from + size, ids.size());
+            return loadPage(ids.subList(from, to), pageable, ids.size(),
+                    locationRepository::findSummariesByIdIn, LocationSummary::getId);
+        } finally {
+            locationMetrics.recordSearch(LocationMetrics.SearchKind.ADDRESS, query, start);
+        }
+    }
+
+    // Loads one page of index hits by id, keeping the index order
+    private <T> Page<T> loadPage(List<Long> ids, Pageable pageable, long total,
+                                 Function<List<Long>, List<T>> loader, Function<T, Long> idOf) {
+        if (ids.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, total);
+        }
+        Map<Long, T> byId = loader.apply(ids).stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+        List<T> ordered = ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(ordered, pageable, total);
+    }
+
+    /**
+     * Keyset page ordered by id: seeks past the cursor instead of using OFFSET and never runs a count query,
+     * so the cost is the same at any depth. Pass a null or empty cursor for the first slice.
+     */
+    @Transactional(readOnly = true)
+    public LocationSlice getLocationsAfter(String cursor, int limit, String searchTerm) {
+        long start = System.nanoTime();
+        try {
+            if (limit <= 0 || limit > MAX_SLICE_LIMIT) {
+                throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SLICE_LIMIT);
+            }
+            long afterId = decodeCursor(cursor);
+            // Read one extra row to know whether another slice exists
+            Pageable pageable = PageRequest.of(0, limit + 1);
+            List<Location> rows = searchTerm != null && !searchTerm.trim().isEmpty() ?
+                    locationRepository.findByNameContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(searchTerm.trim(), afterId, pageable) :
+                    locationRepository.findByIdGreaterThanOrderByIdAsc(afterId, pageable);
+
+            boolean hasNext = rows.size() > limit;
+            List<Location> content = hasNext ? rows.subList(0, limit) : rows;
+            String nextCursor = hasNext ? encodeCursor(content.get(content.size() - 1).getId()) : null;
+            return new LocationSlice(content, nextCursor, hasNext);
+        } finally {
+            locationMetrics.record(LocationMetrics.Operation.SLICE, start);
+        }
+    }
+
+    private static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 
+    // The unique index on name rejects duplicates, including concurrent creates; no pre-check round trip
     public Location createLocation(Location location) {
-        if (locationRepository.findByName(location.getName()).isPresent()) {
-            throw new IllegalArgumentException("Location with name '" + location.getName() + "' already exists");
+        long start = System.nanoTime();
+        try {
+            checkCoordinates(location);
+            return transactionTemplate.execute(status -> {
+                Location saved = locationRepository.saveAndFlush(location);
+                eventPublisher.publishEvent(LocationsChangedEvent.saved(List.of(saved)));
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw translateNameConflict(location.getName(), null, e);
+        } finally {
+            locationMetrics.record(LocationMetrics.Operation.CREATE, start);
         }
-        return locationRepository.save(location);
     }
 
+    // No transaction around cache hits; misses run in a short read-only location transaction
     public Location getLocationById(Long id) {
-        return locationRepository.findById(id).orElse(null);
+        long start = System.nanoTime();
+        try {
+            return locationReadCache.getById(id, key -> locationReadRouting.readFreshAfterWrite(() ->
+                    readOnlyTransaction.execute(status -> locationRepository.findById(key).orElse(null))));
+        } finally {
+            locationMetrics.record(LocationMetrics.Operation.GET_BY_ID, start);
+        }
+    }
+
+    public Location getLocationByName(String name) {
+        long start = System.nanoTime();
+        try {
+            return locationReadCache.getByName(name, key -> locationReadRouting.readFreshAfterWrite(() ->
+                    readOnlyTransaction.execute(status -> locationRepository.findByName(key).orElse(null))));
+        } finally {
+            locationMetrics.record(LocationMetrics.Operation.GET_BY_NAME, start);
+        }
+    }
+
+    public long getTableVersion() {
+        return locationVersion.current();
+    }
+
+    public Map<String, LocationCache.Stats> getCacheStats() {
+        return locationReadCache.stats();
     }
 
+    /**
+     * Copies name and address onto the stored location. If {@code locationDetails} carries a version, it must be
+     * the stored one, otherwise {@link OptimisticLockingFailureException}; Hibernate checks it again on flush.
+     */
     public Location updateLocation(Location locationDetails) {
-        Optional<Location> byName = locationRepository.findByName(locationDetails.getName());
-        if (byName.isPresent() && !byName.get().getId().equals(locationDetails.getId())) {
-            throw new IllegalArgumentException("Location with name '" + locationDetails.getName() + "' already exists");
+        long start = System.nanoTime();
+        try {
+            return transactionTemplate.execute(status -> {
+                Location location = locationRepository.findById(locationDetails.getId())
+                        .orElseThrow(() -> new IllegalArgumentException("Location not found"));
+                if (locationDetails.getVersion() != null && !locationDetails.getVersion().equals(location.getVersion())) {
+                    throw new OptimisticLockingFailureException("Location was changed by someone else, reload it and try again");
+                }
+                checkCoordinates(locationDetails);
+                location.setName(locationDetails.getName());
+                location.setAddress(locationDetails.getAddress());
+                location.setLatitude(locationDetails.getLatitude());
+                location.setLongitude(locationDetails.getLongitude());
+                Location saved = locationRepository.saveAndFlush(location);
+                eventPublisher.publishEvent(LocationsChangedEvent.saved(List.of(saved)));
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw translateNameConflict(locationDetails.getName(), locationDetails.getId(), e);
+        } finally {
+            locationMetrics.record(LocationMetrics.Operation.UPDATE, start);
+        }
+    }
+
+    // Only a different row holding the name is a conflict; on update the row always finds itself
+    private RuntimeException translateNameConflict(String name, Long id, DataIntegrityViolationException e) {
+        Optional<Location> byName = locationRepository.findByName(name);
+        if (byName.isPresent() && !byName.get().getId().equals(id)) {
+            return duplicateName(name);
+        }
+        return e;
+    }
+
+    private IllegalArgumentException duplicateName(String name) {
+        return new IllegalArgumentException("Location with name '" + name + "' already exists");
+    }
+
+    private static void checkCoordinates(Location location) {
+        if (!hasValidCoordinates(location)) {
+            throw new IllegalArgumentException(INVALID_COORDINATES);
+        }
+    }
+
+    // NaN (unparsable input) fails the range checks
+    private static boolean hasValidCoordinates(Location location) {
+        Double latitude = location.getLatitude();
+        Double longitude = location.getLongitude();
+        if (latitude == null || longitude == null) {
+            return latitude == null && longitude == null;
+        }
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    /**
+     * The {@code k} located locations closest to the point, nearest first. Served from the spatial index only.
+     */
+    public List<LocationNearby> findNearest(double latitude, double longitude, int k) {
+        long start = System.nanoTime();
+        try {
+            checkQueryPoint(latitude, longitude);
+            if (k <= 0 || k > MAX_NEAREST) {
+                throw new IllegalArgumentException("k must be between 1 and " + MAX_NEAREST);
+            }
+            return locationSpatialIndex.nearest(latitude, longitude, k);
+        } finally {
+            locationMetrics.record(LocationMetrics.Operation.NEAREST, start);
+        }
+    }
+
+    /**
+     * Located locations within {@code radiusKm} of the point, nearest first, at most {@code limit}.
+     */
+    public List<LocationNearby> findWithin(double latitude, double longitude, double radiusKm, int limit) {
+        long start = System.nanoTime();
+        try {
+            checkQueryPoint(latitude, longitude);
+            if (!(radiusKm > 0)) {
+                throw new IllegalArgumentException("Radius must be positive");
+            }
+            if (limit <= 0 || limit > MAX_SLICE_LIMIT) {
+                throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SLICE_LIMIT);
+            }
+            return locationSpatialIndex.within(latitude, longitude, radiusKm, limit);
+        } finally {
+            locationMetrics.record(LocationMetrics.Operation.WITHIN, start);
+        }
+    }
+
+    private void checkQueryPoint(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Latitude must be within [-90, 90] and longitude within [-180, 180]");
+        }
+        if (!locationSpatialIndex.isReady()) {
+            throw new IllegalStateException("Spatial index is still loading");
+        }
+    }
+
+    /**
+     * Creates (no id) and updates (with id) many locations at once. Names are validated set-wise with one
+     * lookup per chunk and rows are written with JDBC batches. Invalid items are rejected individually while
+     * the rest are saved; results come back in request order.
+     */
+    public List<LocationBatchResult> saveLocations(List<Location> items) {
+        long start = System.nanoTime();
+        try {
+            LocationBatchResult[] results = new LocationBatchResult[items.size()];
+            Set<String> names = new HashSet<>();
+            Set<Long> ids = new HashSet<>();
+            List<Integer> valid = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                Location item = items.get(i);
+                if (item == null || isBlank(item.getName()) || isBlank(item.getAddress())) {
+                    results[i] = LocationBatchResult.rejected(i, item == null ? null : item.getId(), "Name and address are required");
+                } else if (!hasValidCoordinates(item)) {
+                    results[i] = LocationBatchResult.rejected(i, item.getId(), INVALID_COORDINATES);
+                } else if (!names.add(item.getName())) {
+                    results[i] = LocationBatchResult.rejected(i, item.getId(), "Duplicate name '" + item.getName() + "' in request");
+                } else if (item.getId() != null && !ids.add(item.getId())) {
+                    results[i] = LocationBatchResult.rejected(i, item.getId(), "Duplicate id in request");
+                } else {
+                    valid.add(i);
+                }
+            }
+
+            for (int from = 0; from < valid.size(); from += IMPORT_COMMIT_SIZE) {
+                List<Integer> chunk = valid.subList(from, Math.min(from + IMPORT_COMMIT_SIZE, valid.size()));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> saveChunk(items, chunk, results));
+                } catch (DataIntegrityViolationException e) {
+                    // Lost a race with another writer (or names swapped inside the chunk): retry item by item
+                    for (Integer index : chunk) {
+                        try {
+                            transactionTemplate.executeWithoutResult(status -> saveChunk(items, List.of(index), results));
+                        } catch (DataIntegrityViolationException conflict) {
+                            results[index] = LocationBatchResult.rejected(index, items.get(index).getId(),
+                                    "Location with name '" + items.get(index).getName() + "' already exists");
+                        }
+                    }
+                }
+            }
+            return Arrays.asList(results);
+        } finally {
+            locationMetrics.record(LocationMetrics.Operation.BATCH_SAVE, start);
+        }
+    }
+
+    private void saveChunk(List<Location> items, List<Integer> indexes, LocationBatchResult[] results) {
+        List<String> names = indexes.stream().map(i -> items.get(i).getName()).collect(Collectors.toList());
+        List<Long> updateIds = indexes.stream().map(i -> items.get(i).getId()).filter(Objects::nonNull).collect(Collectors.toList());
+        Map<String, Long> idsByName = locationRepository.findByNameIn(names).stream()
+                .collect(Collectors.toMap(LocationIdName::getName, LocationIdName::getId));
+        Set<Long> existingIds = updateIds.isEmpty() ? Collections.emptySet() : new HashSet<>(locationRepository.findExistingIds(updateIds));
+
+        List<Integer> insertIndexes = new ArrayList<>();
+        List<Location> inserts = new ArrayList<>();
+        List<Location> updates = new ArrayList<>();
+        for (Integer index : indexes) {
+            Location item = items.get(index);
+            Long owner = idsByName.get(item.getName());
+            if (item.getId() == null) {
+                if (owner != null) {
+                    results[index] = LocationBatchResult.rejected(index, null, duplicateName(item.getName()).getMessage());
+                } else {
+                    insertIndexes.add(index);
+                    inserts.add(item);
+                }
+            } else if (!existingIds.contains(item.getId())) {
+                results[index] = LocationBatchResult.rejected(index, item.getId(), "Location not found");
+            } else if (owner != null && !owner.equals(item.getId())) {
+                results[index] = LocationBatchResult.rejected(index, item.getId(), duplicateName(item.getName()).getMessage());
+            } else {
+                updates.add(item);
+                results[index] = LocationBatchResult.updated(index, item.getId());
+            }
+        }
+
+        locationBatchWriter.insertAll(inserts);
+        locationBatchWriter.updateAll(updates);
+        publishSaved(inserts, updates);
+        for (Integer index : insertIndexes) {
+            results[index] = LocationBatchResult.created(index, items.get(index).getId());
         }
-        return locationRepository.save(locationDetails);
     }
 
     public void deleteLocation(Long id) {
-        locationRepository.deleteById(id);
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.execute(status -> deleteChunk(List.of(id)));
+        } finally {
+            locationMetrics.record(LocationMetrics.Operation.DELETE, start);
+        }
+    }
+
+    /**
+     * Deletes the given ids with one {@code DELETE ... WHERE id IN (...)} per chunk of {@link #DELETE_CHUNK_SIZE},
+     * each chunk in its own transaction. If a chunk hits a foreign key, only that chunk is retried id by id
+     * to find the referenced rows.
+     */
+    public Map<Long, LocationDeleteOutcome> deleteLocations(Collection<Long> ids) {
+        long start = System.nanoTime();
+        try {
+            List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+            Map<Long, LocationDeleteOutcome> outcomes = new LinkedHashMap<>();
+            for (int from = 0; from < distinct.size(); from += DELETE_CHUNK_SIZE) {
+                List<Long> chunk = distinct.subList(from, Math.min(from + DELETE_CHUNK_SIZE, distinct.size()));
+                try {
+                    recordDeleted(chunk, transactionTemplate.execute(status -> deleteChunk(chunk)), outcomes);
+                } catch (DataIntegrityViolationException e) {
+                    for (Long id : chunk) {
+                        try {
+                            recordDeleted(List.of(id), transactionTemplate.execute(status -> deleteChunk(List.of(id))), outcomes);
+                        } catch (DataIntegrityViolationException referenced) {
+                            outcomes.put(id, LocationDeleteOutcome.REFERENCED);
+                        }
+                    }
+                }
+            }
+            return outcomes;
+        } finally {
+            locationMetrics.record(LocationMetrics.Operation.BULK_DELETE, start);
+        }
+    }
+
+    private List<Long> deleteChunk(List<Long> ids) {
+        List<Long> existing = locationRepository.findExistingIds(ids);
+        if (!existing.isEmpty()) {
+            locationRepository.deleteAllByIdInBatch(existing);
+            eventPublisher.publishEvent(LocationsChangedEvent.deleted(existing));
+        }
+        return existing;
+    }
+
+    private static void recordDeleted(List<Long> requested, List<Long> deleted, Map<Long, LocationDeleteOutcome> outcomes) {
+        Set<Long> deletedIds = new HashSet<>(deleted);
+        for (Long id : requested) {
+            outcomes.put(id, deletedIds.contains(id) ? LocationDeleteOutcome.DELETED : LocationDeleteOutcome.NOT_FOUND);
+        }
     }
 
     public ByteArrayInputStream exportToExcel(List<Location> locations) throws IOException {
-        return generateExcel(locations);
+        ByteArrayInputStream excel = generateExcel(locations);
+        locationMetrics.recordExport(LocationImportFormat.XLSX, locations.size(), excel.available());
+        return excel;
     }
 
     private ByteArrayInputStream generateExcel(List<Location> locations) throws IOException {
@@ -70,28 +571,12 @@ public class LocationService {
              ByteArrayOutputStream out = new ByteArrayOutputStream()) {
 
             Sheet sheet = workbook.createSheet("Locations");
-
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            CellStyle headerCellStyle = workbook.createCellStyle();
-            Font font = workbook.createFont();
-            font.setBold(true);
-            headerCellStyle.setFont(font);
-
-            String[] headers = {"ID", "Name", "Address"};
-            for (int col = 0; col < headers.length; col++) {
-                Cell cell = headerRow.createCell(col);
-                cell.setCellValue(headers[col]);
-                cell.setCellStyle(headerCellStyle);
-            }
+            createHeaderRow(sheet, createHeaderCellStyle(workbook));
 
             // Create data rows
             int rowIdx = 1;
             for (Location location : locations) {
-                Row row = sheet.createRow(rowIdx++);
-                row.createCell(0).setCellValue(location.getId());
-                row.createCell(1).setCellValue(location.getName());
-                row.createCell(2).setCellValue(location.getAddress());
+                writeLocationRow(sheet.createRow(rowIdx++), location);
             }
 
             workbook.write(out);
@@ -99,29 +584,460 @@ public class LocationService {
         }
     }
 
-    public void saveAllFromExcel(List<Location> locations) {
-        locationRepository.saveAll(locations);
+    /**
+     * Writes the whole location table to {@code out} as an Excel file. Rows are read in id-ordered
+     * chunks while the sheet is being written, so memory depends on the chunk size, not the table size.
+     */
+    public void exportAllToExcel(OutputStream out) throws IOException {
+        exportToExcel(out, null);
+    }
+
+    /**
+     * Same as {@link #exportAllToExcel} but limited to names containing {@code searchTerm} when it is not blank.
+     *
+     * @return number of data rows written
+     */
+    public int exportToExcel(OutputStream out, String searchTerm) throws IOException {
+        String term = searchTerm == null || searchTerm.trim().isEmpty() ? null : searchTerm.trim();
+        AtomicInteger rowCount = new AtomicInteger();
+        LocationMetrics.CountingOutputStream counted = new LocationMetrics.CountingOutputStream(out);
+        try (DeferredSXSSFWorkbook workbook = new DeferredSXSSFWorkbook(EXPORT_ROW_WINDOW)) {
+            CellStyle headerCellStyle = createHeaderCellStyle(workbook);
+            DeferredSXSSFSheet sheet = workbook.createSheet("Locations");
+            sheet.setRowGenerator(rows -> rowCount.set(generateRows(rows, headerCellStyle, term)));
+            workbook.write(counted);
+        } finally {
+            locationMetrics.recordExport(LocationImportFormat.XLSX, rowCount.get(), counted.getCount());
+        }
+        return rowCount.get();
+    }
+
+    private int generateRows(SXSSFSheet sheet, CellStyle headerCellStyle, String searchTerm) {
+        createHeaderRow(sheet, headerCellStyle);
+        int rowIdx = 1;
+        Iterator<Location> locations = iterateLocations(searchTerm, EXPORT_CHUNK_SIZE);
+        while (locations.hasNext()) {
+            writeLocationRow(sheet.createRow(rowIdx++), locations.next());
+        }
+        return rowIdx - 1;
+    }
+
+    /**
+     * Lazily walks locations in id order, reading {@code fetchSize} rows per query (keyset, no OFFSET) only when
+     * the previous chunk is consumed. Rows are loaded as detached copies that never enter the caller's
+     * persistence context (which open-in-view keeps for the whole request), so memory stays constant however many
+     * rows there are and the caller's managed entities are left alone. Optionally limited to names matching
+     * {@code searchTerm} the same way the list search matches them: through the name index once it is built,
+     * with LIKE only during startup.
+     */
+    public Iterator<Location> iterateLocations(String searchTerm, int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive");
+        }
+        return new LocationChunkIterator(searchTerm, fetchSize);
+    }
+
+    private class LocationChunkIterator implements Iterator<Location> {
+        private final String searchTerm;
+        private final int fetchSize;
+        // Ids matched by the name index, null without a search term or while the index is being built
+        private final long[] matchingIds;
+        private int position;
+        private Iterator<Location> chunk = Collections.emptyIterator();
+        private long lastId;
+        private boolean exhausted;
+
+        LocationChunkIterator(String searchTerm, int fetchSize) {
+            this.searchTerm = searchTerm;
+            this.fetchSize = fetchSize;
+            this.matchingIds = searchTerm != null && locationNameIndex.isReady() ? locationNameIndex.matchingIds(searchTerm) : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            // A chunk of matched ids can come back empty when they were all deleted meanwhile
+            while (!chunk.hasNext() && !exhausted) {
+                // One short read-only transaction per chunk, so the print view can read from a replica
+                if (matchingIds != null) {
+                    chunk = nextMatches().iterator();
+                    continue;
+                }
+                Pageable pageable = PageRequest.of(0, fetchSize);
+                List<Location> rows = readOnlyTransaction.execute(status -> searchTerm == null ?
+                        locationRepository.findDetachedAfter(lastId, pageable) :
+                        locationRepository.findDetachedByNameContainingAfter(searchTerm, lastId, pageable));
+                exhausted = rows.size() < fetchSize;
+                if (!rows.isEmpty()) {
+                    lastId = rows.get(rows.size() - 1).getId();
+                }
+                chunk = rows.iterator();
+            }
+            return chunk.hasNext();
+        }
+
+        private List<Location> nextMatches() {
+            int end = Math.min(matchingIds.length, position + fetchSize);
+            List<Long> ids = new ArrayList<>(end - position);
+            for (int i = position; i < end; i++) {
+                ids.add(matchingIds[i]);
+            }
+            position = end;
+            exhausted = position == matchingIds.length;
+            return ids.isEmpty() ? Collections.emptyList()
+                    : readOnlyTransaction.execute(status -> locationRepository.findDetachedByIdIn(ids));
+        }
+
+        @Override
+        public Location next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.next();
+        }
+    }
+
+    public void exportToCsv(OutputStream out) throws IOException {
+        LocationMetrics.CountingOutputStream counted = new LocationMetrics.CountingOutputStream(out);
+        long rows = locationTextExporter.writeCsv(counted);
+        locationMetrics.recordExport(LocationImportFormat.CSV, rows, counted.getCount());
+    }
+
+    public void exportToNdjson(OutputStream out) throws IOException {
+        LocationMetrics.CountingOutputStream counted = new LocationMetrics.CountingOutputStream(out);
+        long rows = locationTextExporter.writeNdjson(counted);
+        locationMetrics.recordExport(LocationImportFormat.NDJSON, rows, counted.getCount());
+    }
+
+    private CellStyle createHeaderCellStyle(Workbook workbook) {
+        CellStyle headerCellStyle = workbook.createCellStyle();
+        Font font = workbook.createFont();
+        font.setBold(true);
+        headerCellStyle.setFont(font);
+        return headerCellStyle;
+    }
+
+    private void createHeaderRow(Sheet sheet, CellStyle headerCellStyle) {
+        Row headerRow = sheet.createRow(0);
+        for (int col = 0; col < EXCEL_HEADERS.length; col++) {
+            Cell cell = headerRow.createCell(col);
+            cell.setCellValue(EXCEL_HEADERS[col]);
+            cell.setCellStyle(headerCellStyle);
+        }
+    }
+
+    private void writeLocationRow(Row row, Location location) {
+        row.createCell(0).setCellValue(location.getId());
+        row.createCell(1).setCellValue(location.getName());
+        row.createCell(2).setCellValue(location.getAddress());
+        if (location.getLatitude() != null && location.getLongitude() != null) {
+            row.createCell(3).setCellValue(location.getLatitude());
+            row.createCell(4).setCellValue(location.getLongitude());
+        }
+    }
+
+    public LocationImportResult importFromExcel(InputStream inputStream, LocationImportMode mode) throws IOException {
+        return importLocations(inputStream, LocationImportFormat.XLSX, mode);
+    }
+
+    public LocationImportResult importLocations(InputStream inputStream, LocationImportFormat format,
+                                                LocationImportMode mode) throws IOException {
+        LocationImportResult result = new LocationImportResult();
+        try {
+            parse(inputStream, format, batch -> importBatch(batch, mode, result));
+            deleteMissing(mode, result);
+        } finally {
+            finishImport(result);
+        }
+        return result;
+    }
+
+    /**
+     * Imports an already spooled file, reporting progress into {@code result} as batches commit.
+     * Stops with {@link CancellationException} before the next batch once the result is cancelled.
+     */
+    public LocationImportResult importLocations(File file, LocationImportFormat format, LocationImportMode mode,
+                                                LocationImportResult result) throws IOException {
+        Consumer<List<Location>> consumer = batch -> importBatch(batch, mode, result);
+        try {
+            if (format == LocationImportFormat.XLSX) {
+                LocationExcelImporter.importLocations(file, IMPORT_COMMIT_SIZE, consumer);
+            } else {
+                try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                    parse(inputStream, format, consumer);
+                }
+            }
+            deleteMissing(mode, result);
+        } finally {
+            finishImport(result);
+        }
+        return result;
+    }
+
+    // Every format feeds the same batched persistence path
+    private void parse(InputStream inputStream, LocationImportFormat format,
+                       Consumer<List<Location>> consumer) throws IOException {
+        switch (format) {
+            case CSV:
+                LocationTextImporter.importCsv(inputStream, IMPORT_COMMIT_SIZE, consumer);
+                break;
+            case NDJSON:
+                LocationTextImporter.importNdjson(inputStream, IMPORT_COMMIT_SIZE, consumer, objectMapper);
+                break;
+            default:
+                LocationExcelImporter.importLocations(inputStream, IMPORT_COMMIT_SIZE, consumer);
+                break;
+        }
+    }
+
+    public LocationImportResult saveAllFromExcel(List<Location> locations) {
+        return saveAllFromExcel(locations, LocationImportMode.SKIP);
     }
 
+    public LocationImportResult saveAllFromExcel(List<Location> locations, LocationImportMode mode) {
+        LocationImportResult result = new LocationImportResult();
+        try {
+            for (int from = 0; from < locations.size(); from += IMPORT_COMMIT_SIZE) {
+                importBatch(locations.subList(from, Math.min(from + IMPORT_COMMIT_SIZE, locations.size())), mode, result);
+            }
+            deleteMissing(mode, result);
+        } finally {
+            finishImport(result);
+        }
+        return result;
+    }
+
+    // Each batch costs one name lookup plus one JDBC batch per write kind, all in one commit
+    private void importBatch(List<Location> batch, LocationImportMode mode, LocationImportResult result) {
+        if (result.isCancelled()) {
+            throw new CancellationException("Import cancelled");
+        }
+        if (mode == LocationImportMode.SYNC_DELETE && result.getSyncMaxId() < 0) {
+            result.setSyncMaxId(locationRepository.findMaxId());
+        }
+        result.addParsed(batch.size());
+        Map<String, Location> byName = new LinkedHashMap<>();
+        for (Location location : batch) {
+            if (isBlank(location.getName()) || isBlank(location.getAddress()) || !hasValidCoordinates(location)) {
+                result.addFailed(1);
+            } else if (byName.containsKey(location.getName())) {
+                if (mode == LocationImportMode.FAIL) {
+                    throw duplicateName(location.getName());
+                }
+                if (mode == LocationImportMode.UPSERT || mode.isSync()) {
+                    byName.put(location.getName(), location);
+                }
+                result.addSkipped(1);
+            } else {
+                byName.put(location.getName(), location);
+            }
+        }
+        if (byName.isEmpty()) {
+            return;
+        }
+
+        long persistStart = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> persistBatch(byName, mode, result));
+        } finally {
+            result.addPersistNanos(System.nanoTime() - persistStart);
+        }
+    }
+
+    private void persistBatch(Map<String, Location> byName, LocationImportMode mode, LocationImportResult result) {
+        if (mode.isSync()) {
+            persistSyncBatch(byName, result);
+            return;
+        }
+        Map<String, LocationCoordinates> existing = locationRepository.findCoordinatesByNameIn(byName.keySet()).stream()
+                .collect(Collectors.toMap(LocationCoordinates::getName, Function.identity()));
+        List<Location> inserts = new ArrayList<>();
+        List<Location> updates = new ArrayList<>();
+        for (Location location : byName.values()) {
+            LocationCoordinates stored = existing.get(location.getName());
+            if (stored == null) {
+                inserts.add(location);
+            } else if (mode == LocationImportMode.FAIL) {
+                throw duplicateName(location.getName());
+            } else if (mode == LocationImportMode.UPSERT) {
+                location.setId(stored.getId());
+                keepStoredCoordinates(location, stored.getLatitude(), stored.getLongitude());
+                updates.add(location);
+            } else {
+                result.addSkipped(1);
+            }
+        }
+        result.addInserted(locationBatchWriter.insertAll(inserts));
+        result.addUpdated(locationBatchWriter.updateAddresses(updates));
+        publishSaved(inserts, updates);
+    }
+
+    // Name and address sheets (like the download template) have no coordinate columns; their rows must not
+    // wipe the stored position. Only a row carrying both coordinates replaces it.
+    private static void keepStoredCoordinates(Location location, Double latitude, Double longitude) {
+        if (location.getLatitude() == null && location.getLongitude() == null) {
+            location.setLatitude(latitude);
+            location.setLongitude(longitude);
+        }
+    }
+
+    // Matches rows by name and writes only those whose content hash differs from the stored one. A row without
+    // coordinates takes the stored ones first, so for name and address sheets only those two are compared
+    private void persistSyncBatch(Map<String, Location> byName, LocationImportResult result) {
+        Map<String, LocationSyncState> existing = locationRepository.findSyncStatesByNameIn(byName.keySet()).stream()
+                .collect(Collectors.toMap(LocationSyncState::getName, Function.identity()));
+        List<Location> inserts = new ArrayList<>();
+        List<Location> updates = new ArrayList<>();
+        for (Location location : byName.values()) {
+            LocationSyncState state = existing.get(location.getName());
+            if (state == null) {
+                inserts.add(location);
+                continue;
+            }
+            result.markSyncSeen(state.getId());
+            keepStoredCoordinates(location, state.getLatitude(), state.getLongitude());
+            if (LocationContentHash.of(location).equals(state.getContentHash())) {
+                result.addUnchanged(1);
+            } else {
+                location.setId(state.getId());
+                updates.add(location);
+            }
+        }
+        result.addInserted(locationBatchWriter.insertAll(inserts));
+        result.addUpdated(locationBatchWriter.updateAddresses(updates));
+        publishSaved(inserts, updates);
+    }
+
+    /**
+     * Last step of a {@link LocationImportMode#SYNC_DELETE} import, run only after every batch went through:
+     * deletes the locations that existed before the import but were not in the file, through
+     * {@link #deleteLocations} so referenced ones are kept.
+     */
+    private void deleteMissing(LocationImportMode mode, LocationImportResult result) {
+        if (mode != LocationImportMode.SYNC_DELETE) {
+            return;
+        }
+        if (result.isCancelled()) {
+            throw new CancellationException("Import cancelled");
+        }
+        if (result.getParsed() == 0 || result.getFailed() > 0) {
+            result.skipDeletes();
+            log.warn("Sync import kept locations missing from the file: {} rows read, {} rejected",
+                    result.getParsed(), result.getFailed());
+            return;
+        }
+        long maxId = result.getSyncMaxId();
+        long lastId = 0L;
+        long referenced = 0;
+        boolean more = true;
+        while (more) {
+            List<LocationIdName> chunk = locationRepository.findIdNamesAfter(lastId, PageRequest.of(0, DELETE_CHUNK_SIZE));
+            List<Long> missing = new ArrayList<>();
+            for (LocationIdName location : chunk) {
+                lastId = location.getId();
+                if (lastId > maxId) {
+                    break;
+                }
+                if (!result.isSyncSeen(lastId)) {
+                    missing.add(lastId);
+                }
+            }
+            more = chunk.size() == DELETE_CHUNK_SIZE && lastId <= maxId;
+            for (LocationDeleteOutcome outcome : deleteLocations(missing).values()) {
+                if (outcome == LocationDeleteOutcome.DELETED) {
+                    result.addDeleted(1);
+                } else if (outcome == LocationDeleteOutcome.REFERENCED) {
+                    referenced++;
+                }
+            }
+        }
+        if (referenced > 0) {
+            log.info("Sync import kept {} locations missing from the file because they are still referenced", referenced);
+        }
+    }
+
+    // JDBC batches don't hand back IDENTITY keys portably, so inserted ids are read back by name
+    private void publishSaved(List<Location> inserts, List<Location> updates) {
+        if (!inserts.isEmpty()) {
+            Map<String, Long> ids = locationRepository.findByNameIn(
+                            inserts.stream().map(Location::getName).collect(Collectors.toList())).stream()
+                    .collect(Collectors.toMap(LocationIdName::getName, LocationIdName::getId));
+            inserts.forEach(location -> location.setId(ids.get(location.getName())));
+        }
+        List<Location> saved = new ArrayList<>(inserts);
+        saved.addAll(updates);
+        if (!saved.isEmpty()) {
+            eventPublisher.publishEvent(LocationsChangedEvent.saved(saved));
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private void finishImport(LocationImportResult result) {
+        result.finish();
+        locationMetrics.recordImport(result);
+        log.info("Imported {} locations in {} ms ({} rows/s, {} ms persisting, {} updated, {} unchanged, {} deleted, {} rejected)",
+                result.getInserted(), result.getElapsedMillis(), String.format("%.0f", result.getRowsPerSecond()),
+                result.getPersistMillis(), result.getUpdated(), result.getUnchanged(), result.getDeleted(), result.getFailed());
+    }
+
+    /**
+     * Id and name of every location, cached per table version so a write on any node is seen at the next call.
+     */
     public List<Map<String, Object>> getLocationOfDepartment() {
-        return locationRepository.findAll()
-                .stream()
-                .map(name -> {
-                    Map<String, Object> userMap = new HashMap<>();
-                    userMap.put("id", name.getId());
-                    userMap.put("name", name.getName());
-                    return userMap;
-                })
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return locationReadCache.getDepartmentOptions(locationVersion.current(), () -> locationReadRouting.readFreshAfterWrite(locationRepository::findAllIdNames)
+                    .stream()
+                    .map(name -> {
+                        Map<String, Object> userMap = new HashMap<>();
+                        userMap.put("id", name.getId());
+                        userMap.put("name", name.getName());
+                        return Collections.unmodifiableMap(userMap);
+                    })
+                    .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList)));
+        } finally {
+            locationMetrics.record(LocationMetrics.Operation.DEPARTMENT_OPTIONS, start);
+        }
     }
 
+    /**
+     * Dropdown options as ready-to-send JSON ({@code [{"id":..,"name":..}]}), rebuilt only when the
+     * table version changes. The version is read from the database, so writes on other nodes are seen at once.
+     * The payload's ETag lets clients revalidate with If-None-Match; it carries the version the names were read
+     * at, never a newer one.
+     */
+    public LocationOptionsPayload getLocationOptionsPayload() {
+        long start = System.nanoTime();
+        try {
+            long version = locationVersion.current();
+            return locationReadCache.getOptionsPayload(version, () -> {
+                try {
+                    LocationSnapshot<List<LocationIdName>> names = snapshot(version, locationRepository::findAllIdNames);
+                    return new LocationOptionsPayload(names.getVersion(), objectMapper.writeValueAsBytes(names.getData()));
+                } catch (JsonProcessingException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } finally {
+            locationMetrics.record(LocationMetrics.Operation.OPTIONS_PAYLOAD, start);
+        }
+    }
+
+    @Transactional(readOnly = true)
     public Page<Location> getLocations(String searchTerm, int page, int size) {
-        if (page < 0 || size <= 0) {
-            throw new IllegalArgumentException("Invalid page or size parameters");
+        long start = System.nanoTime();
+        try {
+            if (page < 0 || size <= 0) {
+                throw new IllegalArgumentException("Invalid page or size parameters");
+            }
+            Pageable pageable = PageRequest.of(page, size);
+            return searchTerm != null && !searchTerm.trim().isEmpty() ?
+                    searchByName(searchTerm.trim(), pageable) :
+                    locationRepository.findAll(pageable);
+        } finally {
+            locationMetrics.recordSearch(LocationMetrics.SearchKind.NAME, searchTerm, start);
         }
-        Pageable pageable = PageRequest.of(page, size);
-        return searchTerm != null && !searchTerm.trim().isEmpty() ?
-                locationRepository.findByNameContainingIgnoreCase(searchTerm.trim(), pageable) :
-                locationRepository.findAll(pageable);
     }
 }
@@ -0,0 +1,17 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One keyset page. {@code nextCursor} is opaque to clients and is null on the last page.
+ */
+@Getter
+@AllArgsConstructor
+public class LocationSlice {
+    private final List<Location> content;
+    private final String nextCursor;
+    private final boolean hasNext;
+}
@@ -0,0 +1,15 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Data read together with the table version, in one transaction and with the version read first, so the version
+ * is never newer than the data. Used to build ETags from whichever database answered.
+ */
+@Getter
+@AllArgsConstructor
+public class LocationSnapshot<T> {
+    private final long version;
+    private final T data;
+}
@@ -0,0 +1,303 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory grid index over location coordinates: the globe is cut into {@link #CELL_DEGREES} cells and each
+ * cell lists its locations. Nearest-neighbour queries walk rings of cells outwards from the query point and stop
+ * once no unvisited cell can hold anything closer; radius queries only visit the cells of the bounding box.
+ * Built once at startup and kept current from {@link LocationsChangedEvent}s, local and remote, like the name index.
+ */
+@Slf4j
+@Component
+public class LocationSpatialIndex {
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    // About 5.5 km north-south: a few locations per cell in a city, a handful of cells per query
+    private static final double CELL_DEGREES = 0.05;
+    private static final int ROWS = (int) Math.round(180 / CELL_DEGREES);
+    private static final int COLS = (int) Math.round(360 / CELL_DEGREES);
+    private static final int REBUILD_CHUNK_SIZE = 5000;
+    private static final Comparator<Candidate> BY_DISTANCE = Comparator.comparingDouble(Candidate::getDistanceKm);
+
+    private final LocationRepository locationRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Point> points = new HashMap<>();
+    private final Map<Integer, List<Point>> cells = new HashMap<>();
+    private volatile boolean ready;
+
+    public LocationSpatialIndex(LocationRepository locationRepository) {
+        this.locationRepository = locationRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            points.clear();
+            cells.clear();
+            long lastId = 0L;
+            List<LocationCoordinates> chunk;
+            do {
+                chunk = locationRepository.findCoordinatesAfter(lastId, PageRequest.of(0, REBUILD_CHUNK_SIZE));
+                for (LocationCoordinates location : chunk) {
+                    put(location.getId(), location.getName(), location.getLatitude(), location.getLongitude());
+                    lastId = location.getId();
+                }
+            } while (chunk.size() == REBUILD_CHUNK_SIZE);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Location spatial index built with {} points in {} cells in {} ms", points.size(), cells.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsChanged(LocationsChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : event.getDeletedIds()) {
+                remove(id);
+            }
+            for (Location location : event.getSaved()) {
+                remove(location.getId());
+                put(location.getId(), location.getName(), location.getLatitude(), location.getLongitude());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns up to {@code k} located locations ordered by distance from the given point.
+     */
+    public List<LocationNearby> nearest(double latitude, double longitude, int k) {
+        lock.readLock().lock();
+        try {
+            if (k <= 0 || points.isEmpty()) {
+                return Collections.emptyList();
+            }
+            PriorityQueue<Candidate> best = new PriorityQueue<>(Math.min(k, points.size()), BY_DISTANCE.reversed());
+            int row = row(latitude);
+            int col = col(longitude);
+            for (int ring = 0; ; ring++) {
+                // Rings grow by 8 cells each time; once that outnumbers the occupied cells, scan those instead
+                if (8L * ring > cells.size() || 2 * ring + 1 >= COLS || ring > ROWS) {
+                    for (Map.Entry<Integer, List<Point>> cell : cells.entrySet()) {
+                        if (ringOf(cell.getKey(), row, col) >= ring) {
+                            offer(best, k, cell.getValue(), latitude, longitude);
+                        }
+                    }
+                    break;
+                }
+                if (best.size() == k && best.peek().getDistanceKm() <= distanceOutside(latitude, longitude, row, col, ring - 1)) {
+                    break;
+                }
+                visitRing(row, col, ring, cell -> offer(best, k, cell, latitude, longitude));
+            }
+            List<Candidate> ordered = new ArrayList<>(best);
+            ordered.sort(BY_DISTANCE);
+            return toResults(ordered);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns located locations within {@code radiusKm} of the given point, nearest first, at most {@code limit}.
+     */
+    public List<LocationNearby> within(double latitude, double longitude, double radiusKm, int limit) {
+        lock.readLock().lock();
+        try {
+            if (limit <= 0 || points.isEmpty()) {
+                return Collections.emptyList();
+            }
+            double angle = radiusKm / EARTH_RADIUS_KM;
+            double latDelta = Math.toDegrees(angle);
+            int fromRow = row(latitude - latDelta);
+            int toRow = row(latitude + latDelta);
+            // Widest longitude span of a spherical cap; it covers every longitude once the cap reaches a pole
+            double sinSpan = Math.sin(Math.min(angle, Math.PI / 2)) / Math.cos(Math.toRadians(latitude));
+            int colSpan = Math.abs(latitude) + latDelta >= 90 || sinSpan >= 1 ? COLS
+                    : (int) Math.ceil(Math.toDegrees(Math.asin(sinSpan)) / CELL_DEGREES) + 1;
+
+            List<Candidate> found = new ArrayList<>();
+            if (colSpan * 2L + 1 >= COLS || (long) (toRow - fromRow + 1) * (colSpan * 2L + 1) > cells.size()) {
+                for (List<Point> cell : cells.values()) {
+                    collectWithin(found, cell, latitude, longitude, radiusKm);
+                }
+            } else {
+                int col = col(longitude);
+                for (int r = fromRow; r <= toRow; r++) {
+                    for (int c = col - colSpan; c <= col + colSpan; c++) {
+                        List<Point> cell = cells.get(key(r, Math.floorMod(c, COLS)));
+                        if (cell != null) {
+                            collectWithin(found, cell, latitude, longitude, radiusKm);
+                        }
+                    }
+                }
+            }
+            found.sort(BY_DISTANCE);
+            return toResults(found.size() > limit ? found.subList(0, limit) : found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void visitRing(int row, int col, int ring, Consumer<List<Point>> visitor) {
+        for (int r = row - ring; r <= row + ring; r++) {
+            if (r < 0 || r >= ROWS) {
+                continue;
+            }
+            boolean edgeRow = r == row - ring || r == row + ring;
+            int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+            for (int c = col - ring; c <= col + ring; c += step) {
+                List<Point> cell = cells.get(key(r, Math.floorMod(c, COLS)));
+                if (cell != null) {
+                    visitor.accept(cell);
+                }
+            }
+        }
+    }
+
+    // Chebyshev distance in cells, with longitude wrapping around the antimeridian
+    private static int ringOf(int key, int row, int col) {
+        int colDelta = Math.abs(key % COLS - col);
+        return Math.max(Math.abs(key / COLS - row), Math.min(colDelta, COLS - colDelta));
+    }
+
+    /**
+     * Lower bound of the distance from the point to anything outside the box of cells within {@code ring}
+     * of its own cell: the nearer of the box's latitude edges and the great-circle distance to its edge meridians.
+     */
+    private static double distanceOutside(double latitude, double longitude, int row, int col, int ring) {
+        if (ring < 0) {
+            return 0;
+        }
+        double south = (row - ring) * CELL_DEGREES - 90;
+        double north = (row + ring + 1) * CELL_DEGREES - 90;
+        double west = (col - ring) * CELL_DEGREES - 180;
+        double east = (col + ring + 1) * CELL_DEGREES - 180;
+        double bound = Double.MAX_VALUE;
+        if (south > -90) {
+            bound = Math.min(bound, Math.toRadians(latitude - south) * EARTH_RADIUS_KM);
+        }
+        if (north < 90) {
+            bound = Math.min(bound, Math.toRadians(north - latitude) * EARTH_RADIUS_KM);
+        }
+        double lngDelta = Math.min(Math.min(longitude - west, east - longitude), 90);
+        bound = Math.min(bound, Math.asin(Math.cos(Math.toRadians(latitude)) * Math.sin(Math.toRadians(lngDelta))) * EARTH_RADIUS_KM);
+        return bound;
+    }
+
+    private static void offer(PriorityQueue<Candidate> best, int k, List<Point> cell, double latitude, double longitude) {
+        for (Point point : cell) {
+            double distance = distanceKm(latitude, longitude, point.latitude, point.longitude);
+            if (best.size() < k) {
+                best.add(new Candidate(point, distance));
+            } else if (distance < best.peek().getDistanceKm()) {
+                best.poll();
+                best.add(new Candidate(point, distance));
+            }
+        }
+    }
+
+    private static void collectWithin(List<Candidate> found, List<Point> cell, double latitude, double longitude, double radiusKm) {
+        for (Point point : cell) {
+            double distance = distanceKm(latitude, longitude, point.latitude, point.longitude);
+            if (distance <= radiusKm) {
+                found.add(new Candidate(point, distance));
+            }
+        }
+    }
+
+    private static List<LocationNearby> toResults(Collection<Candidate> candidates) {
+        List<LocationNearby> results = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            Point point = candidate.getPoint();
+            results.add(new LocationNearby(point.id, point.name, point.latitude, point.longitude, candidate.getDistanceKm()));
+        }
+        return results;
+    }
+
+    // Haversine great-circle distance on a spherical Earth
+    static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private void put(Long id, String name, Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return;
+        }
+        Point point = new Point(id, name, latitude, longitude, key(row(latitude), col(longitude)));
+        points.put(id, point);
+        cells.computeIfAbsent(point.cell, key -> new ArrayList<>()).add(point);
+    }
+
+    private void remove(Long id) {
+        Point point = points.remove(id);
+        if (point == null) {
+            return;
+        }
+        List<Point> cell = cells.get(point.cell);
+        if (cell != null && cell.remove(point) && cell.isEmpty()) {
+            cells.remove(point.cell);
+        }
+    }
+
+    private static int row(double latitude) {
+        return Math.max(0, Math.min(ROWS - 1, (int) Math.floor((latitude + 90) / CELL_DEGREES)));
+    }
+
+    private static int col(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / CELL_DEGREES), COLS);
+    }
+
+    private static int key(int row, int col) {
+        return row * COLS + col;
+    }
+
+    @AllArgsConstructor
+    private static final class Point {
+        private final Long id;
+        private final String name;
+        private final double latitude;
+        private final double longitude;
+        private final int cell;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class Candidate {
+        private final Point point;
+        private final double distanceKm;
+    }
+}
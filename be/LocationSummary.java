@@ -0,0 +1,13 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+/**
+ * List-row projection: id, name and the first {@link LocationRepository#ADDRESS_PREVIEW_LENGTH} characters
+ * of the address, so list pages don't pull the whole address LOB. The full address is loaded on the detail view.
+ */
+public interface LocationSummary {
+    Long getId();
+
+    String getName();
+
+    String getAddressPreview();
+}
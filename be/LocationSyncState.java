@@ -0,0 +1,17 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+/**
+ * Id, name, coordinates and content hash projection; all a sync import needs to decide whether a row changed.
+ * The coordinates are kept for rows that come without any.
+ */
+public interface LocationSyncState {
+    Long getId();
+
+    String getName();
+
+    Double getLatitude();
+
+    Double getLongitude();
+
+    String getContentHash();
+}
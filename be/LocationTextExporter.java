@@ -0,0 +1,141 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the location table as CSV or NDJSON straight from a forward-only JDBC cursor, one row at a time.
+ * The cursor runs inside a read-only transaction so drivers that need it (PostgreSQL) fetch in chunks of
+ * {@link #FETCH_SIZE}; on MySQL add {@code useCursorFetch=true} to the JDBC URL.
+ */
+@Component
+public class LocationTextExporter {
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final int FETCH_SIZE = 1000;
+    private static final String SELECT_SQL = "SELECT id, name, address, latitude, longitude FROM location ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public LocationTextExporter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setName(LocationTextExporter.class.getName() + ".export");
+    }
+
+    /**
+     * @return number of rows written
+     */
+    public long writeCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,name,address,latitude,longitude\r\n");
+        long rows = streamRows(rs -> {
+            try {
+                writer.write(Long.toString(rs.getLong("id")));
+                writer.write(',');
+                writer.write(csvField(rs.getString("name")));
+                writer.write(',');
+                writer.write(csvField(rs.getString("address")));
+                writer.write(',');
+                writer.write(coordinate(rs, "latitude"));
+                writer.write(',');
+                writer.write(coordinate(rs, "longitude"));
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+        return rows;
+    }
+
+    /**
+     * Writes one JSON object per row, each followed by a newline; an empty table gives an empty body.
+     *
+     * @return number of rows written
+     */
+    public long writeNdjson(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // Records end with their own newline rather than being separated by one
+        generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+        long rows = streamRows(rs -> {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("id", rs.getLong("id"));
+                generator.writeStringField("name", rs.getString("name"));
+                generator.writeStringField("address", rs.getString("address"));
+                writeCoordinate(generator, rs, "latitude");
+                writeCoordinate(generator, rs, "longitude");
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.flush();
+        return rows;
+    }
+
+    private long streamRows(RowCallbackHandler handler) throws IOException {
+        AtomicLong rows = new AtomicLong();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                handler.processRow(rs);
+                rows.incrementAndGet();
+            }));
+            return rows.get();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String coordinate(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? "" : Double.toString(value);
+    }
+
+    private static void writeCoordinate(JsonGenerator generator, ResultSet rs, String column) throws SQLException, IOException {
+        double value = rs.getDouble(column);
+        if (rs.wasNull()) {
+            generator.writeNullField(column);
+        } else {
+            generator.writeNumberField(column, value);
+        }
+    }
+
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
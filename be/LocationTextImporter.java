@@ -0,0 +1,167 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Streaming CSV and NDJSON parsers with the same batch contract as {@link LocationExcelImporter}:
+ * rows are read incrementally and handed to the consumer in batches, so memory is bounded by the batch size.
+ */
+public class LocationTextImporter {
+
+    /**
+     * Reads RFC 4180 CSV (quoted fields may contain commas, quotes and line breaks). The header row must
+     * contain {@code name} and {@code address} columns and may contain {@code latitude} and {@code longitude};
+     * other columns such as {@code id} are ignored.
+     *
+     * @return number of data rows passed to {@code batchConsumer}
+     */
+    public static int importCsv(InputStream inputStream, int batchSize,
+                                Consumer<List<Location>> batchConsumer) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            return 0;
+        }
+        int nameCol = indexOf(header, "name");
+        int addressCol = indexOf(header, "address");
+        int latitudeCol = indexOf(header, "latitude");
+        int longitudeCol = indexOf(header, "longitude");
+        if (nameCol < 0 || addressCol < 0) {
+            throw new IOException("CSV header must contain 'name' and 'address' columns");
+        }
+
+        List<Location> batch = new ArrayList<>(batchSize);
+        int rowCount = 0;
+        List<String> record;
+        while ((record = readCsvRecord(reader)) != null) {
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+            Location location = new Location();
+            location.setName(nameCol < record.size() ? record.get(nameCol) : null);
+            location.setAddress(addressCol < record.size() ? record.get(addressCol) : null);
+            location.setLatitude(latitudeCol >= 0 && latitudeCol < record.size() ? parseCoordinate(record.get(latitudeCol)) : null);
+            location.setLongitude(longitudeCol >= 0 && longitudeCol < record.size() ? parseCoordinate(record.get(longitudeCol)) : null);
+            batch.add(location);
+            rowCount++;
+            if (batch.size() >= batchSize) {
+                batchConsumer.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(batch);
+        }
+        return rowCount;
+    }
+
+    /**
+     * Reads one JSON object per line with {@code name}, {@code address} and optional {@code latitude} and
+     * {@code longitude} fields; unknown fields are ignored.
+     *
+     * @return number of data rows passed to {@code batchConsumer}
+     */
+    public static int importNdjson(InputStream inputStream, int batchSize, Consumer<List<Location>> batchConsumer,
+                                   ObjectMapper objectMapper) throws IOException {
+        List<Location> batch = new ArrayList<>(batchSize);
+        int rowCount = 0;
+        try (MappingIterator<Location> rows = objectMapper.readerFor(Location.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValues(inputStream)) {
+            while (rows.hasNextValue()) {
+                Location location = rows.nextValue();
+                location.setId(null);
+                location.setVersion(null);
+                batch.add(location);
+                rowCount++;
+                if (batch.size() >= batchSize) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(batch);
+        }
+        return rowCount;
+    }
+
+    /**
+     * Blank means no coordinate; anything unparsable becomes NaN so validation rejects the row instead of
+     * silently importing it without a position.
+     */
+    static Double parseCoordinate(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static int indexOf(List<String> header, String column) {
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT).equals(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Returns the fields of the next record, or null at end of input
+    private static List<String> readCsvRecord(Reader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Table-level version of the location data: the last sequence of the change outbox ({@link LocationChangeLog}),
+ * which every create, update, delete or import bumps right after it commits. It lives in the database, so all
+ * nodes see the same version as soon as it moves, and it never repeats across restarts. It never moves before
+ * the data it covers is visible.
+ * It drives the ETags of list responses. Each call is a single-row query: read it once per request,
+ * before the data it tags.
+ */
+@Component
+public class LocationVersion {
+    private final LocationChangeLog changeLog;
+
+    public LocationVersion(LocationChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    public long current() {
+        return changeLog.latestSeq();
+    }
+}
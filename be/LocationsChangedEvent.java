@@ -0,0 +1,33 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published by {@link LocationService} inside the writing transaction whenever locations are created,
+ * updated, imported or deleted. {@link LocationChangeLog} records it in the same transaction; in-memory read
+ * models listen after commit. {@link LocationChangeFeed} republishes changes committed by other nodes as
+ * {@code remote} events, outside any transaction, so every node's read models follow every write.
+ */
+@Getter
+@AllArgsConstructor
+public class LocationsChangedEvent {
+    private final List<Location> saved;
+    private final List<Long> deletedIds;
+    private final boolean remote;
+
+    public static LocationsChangedEvent saved(List<Location> locations) {
+        return new LocationsChangedEvent(locations, Collections.emptyList(), false);
+    }
+
+    public static LocationsChangedEvent deleted(List<Long> ids) {
+        return new LocationsChangedEvent(Collections.emptyList(), ids, false);
+    }
+
+    public static LocationsChangedEvent remote(List<Location> saved, List<Long> deletedIds) {
+        return new LocationsChangedEvent(saved, deletedIds, true);
+    }
+}
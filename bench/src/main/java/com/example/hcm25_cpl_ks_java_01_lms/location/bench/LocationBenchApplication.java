@@ -0,0 +1,110 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location.bench;
+
+import com.example.hcm25_cpl_ks_java_01_lms.common.Constants;
+import com.example.hcm25_cpl_ks_java_01_lms.location.LocationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.web.SecurityFilterChain;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Boots only the location beans (plus the repositories and entities they reference) against an
+ * in-memory H2 database, without the web layer. Each call gets its own database.
+ * {@link #startWeb} also starts the location controllers on a random port, for end-to-end runs.
+ */
+@SpringBootApplication(scanBasePackageClasses = LocationService.class)
+@EntityScan("com.example.hcm25_cpl_ks_java_01_lms")
+@EnableJpaRepositories("com.example.hcm25_cpl_ks_java_01_lms")
+public class LocationBenchApplication {
+    private static final String BASE_PACKAGE = "com.example.hcm25_cpl_ks_java_01_lms";
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        return run(WebApplicationType.NONE,
+                "jdbc:h2:mem:location-bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", properties);
+    }
+
+    /**
+     * Starts the location controllers on {@code local.server.port} with HTTP basic authentication
+     * ({@code spring.security.user.*}) and the page templates read from {@code location.bench.templates-dir}.
+     */
+    public static ConfigurableApplicationContext startWeb(String jdbcUrl, String... properties) {
+        return run(WebApplicationType.SERVLET, jdbcUrl, properties);
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType type, String jdbcUrl, String... properties) {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=" + jdbcUrl);
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        SpringApplication application = new SpringApplicationBuilder(LocationBenchApplication.class)
+                .web(type)
+                .profiles("bench")
+                .build();
+        return application.run(args.toArray(new String[0]));
+    }
+
+    /**
+     * The web pieces the full application gets from outside the location package: a security chain and the
+     * page layout. The layout here only renders the {@code content} fragment, without the menu.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication
+    static class WebConfig {
+
+        @Bean
+        SecurityFilterChain locationBenchSecurity(HttpSecurity http) throws Exception {
+            return http
+                    .csrf(AbstractHttpConfigurer::disable)
+                    .authorizeHttpRequests(requests -> requests.anyRequest().authenticated())
+                    .httpBasic(Customizer.withDefaults())
+                    .build();
+        }
+
+        @Bean
+        ITemplateResolver locationBenchLayoutResolver() {
+            ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+            resolver.setPrefix("location-bench/");
+            resolver.setSuffix(".html");
+            resolver.addTemplateAlias(Constants.LAYOUT, "layout");
+            resolver.setResolvablePatterns(Set.of(Constants.LAYOUT));
+            resolver.setCharacterEncoding("UTF-8");
+            resolver.setOrder(0);
+            return resolver;
+        }
+
+        @Bean
+        ITemplateResolver locationBenchPageResolver(@Value("${location.bench.templates-dir:fe}") Path templatesDir) {
+            FileTemplateResolver resolver = new FileTemplateResolver();
+            resolver.setPrefix(templatesDir.toAbsolutePath() + "/");
+            resolver.setSuffix(".html");
+            resolver.setResolvablePatterns(Set.of("locations/*"));
+            for (String page : List.of("list", "create", "update", "print")) {
+                resolver.addTemplateAlias("locations/" + page, page);
+            }
+            resolver.setCharacterEncoding("UTF-8");
+            resolver.setCheckExistence(true);
+            resolver.setOrder(1);
+            return resolver;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location.bench;
+
+import com.example.hcm25_cpl_ks_java_01_lms.location.Location;
+import com.example.hcm25_cpl_ks_java_01_lms.location.LocationBatchWriter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic Vietnamese-looking locations so every run (and every machine) benchmarks the same data: realistic
+ * names and long, multi-part addresses (building, street, ward, district, city, directions) with coordinates
+ * around the city centre. Rows are generated one at a time from a seed, so the scale test's million-row table and
+ * its matching .xlsx upload never sit in memory.
+ * <p>
+ * {@code java ... LocationBenchData <rows> <file.xlsx> [seed]} writes an upload file on its own.
+ */
+public final class LocationBenchData {
+    public static final long DEFAULT_SEED = 20250101L;
+    private static final int WRITE_BATCH_SIZE = 5000;
+
+    private static final City[] CITIES = {
+            new City("Thành phố Hà Nội", 21.0285, 105.8542, new String[]{"Hoàn Kiếm", "Ba Đình", "Đống Đa", "Cầu Giấy",
+                    "Hai Bà Trưng", "Thanh Xuân", "Hoàng Mai", "Long Biên", "Nam Từ Liêm", "Bắc Từ Liêm", "Tây Hồ", "Hà Đông"}),
+            new City("Thành phố Hồ Chí Minh", 10.7769, 106.7009, new String[]{"Quận 1", "Quận 3", "Quận 5", "Quận 7",
+                    "Quận 10", "Bình Thạnh", "Phú Nhuận", "Tân Bình", "Gò Vấp", "Thủ Đức", "Bình Tân", "Tân Phú"}),
+            new City("Thành phố Đà Nẵng", 16.0544, 108.2022, new String[]{"Hải Châu", "Thanh Khê", "Sơn Trà",
+                    "Ngũ Hành Sơn", "Liên Chiểu", "Cẩm Lệ"}),
+            new City("Thành phố Hải Phòng", 20.8449, 106.6881, new String[]{"Hồng Bàng", "Ngô Quyền", "Lê Chân",
+                    "Hải An", "Kiến An", "Dương Kinh"}),
+            new City("Thành phố Cần Thơ", 10.0452, 105.7469, new String[]{"Ninh Kiều", "Bình Thủy", "Cái Răng", "Ô Môn"}),
+            new City("Thành phố Huế", 16.4637, 107.5909, new String[]{"Phú Hội", "Vĩnh Ninh", "Thuận Hòa", "Tây Lộc"}),
+            new City("Tỉnh Khánh Hòa", 12.2388, 109.1967, new String[]{"Nha Trang", "Cam Ranh", "Ninh Hòa"}),
+            new City("Tỉnh Bà Rịa - Vũng Tàu", 10.3460, 107.0843, new String[]{"Vũng Tàu", "Bà Rịa", "Phú Mỹ"}),
+            new City("Tỉnh Bình Dương", 10.9804, 106.6519, new String[]{"Thủ Dầu Một", "Dĩ An", "Thuận An", "Bến Cát"}),
+            new City("Tỉnh Đồng Nai", 10.9574, 106.8426, new String[]{"Biên Hòa", "Long Khánh", "Nhơn Trạch"}),
+            new City("Tỉnh Quảng Ninh", 20.9712, 107.0448, new String[]{"Hạ Long", "Cẩm Phả", "Uông Bí", "Móng Cái"}),
+            new City("Tỉnh Nghệ An", 18.6796, 105.6813, new String[]{"Vinh", "Cửa Lò", "Thái Hòa"})
+    };
+    private static final String[] STREETS = {"Lê Lợi", "Nguyễn Huệ", "Trần Hưng Đạo", "Hai Bà Trưng", "Lý Thường Kiệt",
+            "Điện Biên Phủ", "Phạm Văn Đồng", "Võ Văn Kiệt", "Nguyễn Trãi", "Cách Mạng Tháng Tám", "Nguyễn Thị Minh Khai",
+            "Lê Duẩn", "Trường Chinh", "Hoàng Văn Thụ", "Nguyễn Văn Linh", "Bạch Đằng", "Quang Trung", "Phan Đình Phùng",
+            "Tôn Đức Thắng", "Xuân Thủy", "Kim Mã", "Láng Hạ", "Nguyễn Chí Thanh", "Võ Nguyên Giáp", "Hùng Vương"};
+    private static final String[] BUILDINGS = {"Tòa nhà Sông Đà", "Tòa nhà Viettel", "Tòa nhà Keangnam", "Tòa nhà Bitexco",
+            "Tòa nhà Landmark", "Tòa nhà FPT", "Tòa nhà Capital Tower", "Khu văn phòng Hải Âu", "Tòa nhà Indochina Plaza",
+            "Trung tâm thương mại Vincom", "Tòa nhà Pacific Place", "Tòa nhà Sài Gòn Centre"};
+    private static final String[] LANDMARKS = {"chợ Bến Thành", "hồ Hoàn Kiếm", "cầu Rồng", "ga Hà Nội", "bến xe Miền Đông",
+            "công viên Thống Nhất", "bệnh viện Bạch Mai", "trường Đại học Bách Khoa", "nhà thờ Đức Bà", "chợ Hàn"};
+    private static final String[] KINDS = {"Cơ sở", "Chi nhánh", "Văn phòng", "Trung tâm đào tạo", "Phòng học",
+            "Phòng thí nghiệm", "Hội trường", "Trung tâm sát hạch"};
+
+    private LocationBenchData() {
+    }
+
+    /**
+     * The first {@code count} rows of {@link #stream(int, long)}, for benchmarks that need them all at once.
+     */
+    public static List<Location> locations(int count, long seed) {
+        List<Location> locations = new ArrayList<>(count);
+        stream(count, seed).forEachRemaining(locations::add);
+        return locations;
+    }
+
+    /**
+     * Lazily generates {@code count} locations with unique names.
+     */
+    public static Iterator<Location> stream(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < count;
+            }
+
+            @Override
+            public Location next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return location(++index, random);
+            }
+        };
+    }
+
+    private static Location location(int sequence, SplittableRandom random) {
+        City city = CITIES[random.nextInt(CITIES.length)];
+        String district = city.districts[random.nextInt(city.districts.length)];
+        String street = STREETS[random.nextInt(STREETS.length)];
+        String name = KINDS[random.nextInt(KINDS.length)] + " " + district + " " + street + " " + sequence;
+
+        StringBuilder address = new StringBuilder(320);
+        if (random.nextInt(3) == 0) {
+            address.append("Tầng ").append(1 + random.nextInt(40)).append(", ")
+                    .append(BUILDINGS[random.nextInt(BUILDINGS.length)]).append(", ");
+        }
+        address.append("Số ").append(1 + random.nextInt(900));
+        if (random.nextInt(4) == 0) {
+            address.append(" ngõ ").append(1 + random.nextInt(200)).append(" ngách ").append(1 + random.nextInt(80));
+        }
+        address.append(" đường ").append(street)
+                .append(", Phường ").append(1 + random.nextInt(25))
+                .append(", ").append(district.startsWith("Quận") ? district : "Quận " + district)
+                .append(", ").append(city.name).append(", Việt Nam");
+        if (random.nextInt(2) == 0) {
+            address.append(". Gần ").append(LANDMARKS[random.nextInt(LANDMARKS.length)])
+                    .append(", đối diện cổng số ").append(1 + random.nextInt(10))
+                    .append("; xe máy gửi tại tầng hầm B").append(1 + random.nextInt(3))
+                    .append(", ô tô đỗ dọc đường ").append(STREETS[random.nextInt(STREETS.length)]).append('.');
+        }
+
+        // About 10 km around the centre, rounded like a map pin
+        double latitude = Math.round((city.latitude + (random.nextDouble() - 0.5) * 0.18) * 1e6) / 1e6;
+        double longitude = Math.round((city.longitude + (random.nextDouble() - 0.5) * 0.18) * 1e6) / 1e6;
+        return Location.builder()
+                .name(name)
+                .address(address.toString())
+                .latitude(latitude)
+                .longitude(longitude)
+                .build();
+    }
+
+    /**
+     * Inserts the rows through {@link LocationBatchWriter} in batches of {@value #WRITE_BATCH_SIZE}, one commit
+     * each. No change events are published: rebuild the in-memory indexes afterwards.
+     */
+    public static void populate(LocationBatchWriter writer, TransactionTemplate transaction, int count, long seed) {
+        Iterator<Location> locations = stream(count, seed);
+        List<Location> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+        while (locations.hasNext()) {
+            batch.add(locations.next());
+            if (batch.size() == WRITE_BATCH_SIZE || !locations.hasNext()) {
+                List<Location> rows = batch;
+                transaction.executeWithoutResult(status -> writer.insertAll(rows));
+                batch = new ArrayList<>(WRITE_BATCH_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Builds an .xlsx upload in the import layout (header row, then name, address, latitude and longitude).
+     */
+    public static byte[] workbook(List<Location> locations) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeWorkbook(locations.iterator(), out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the rows of {@link #stream(int, long)} to {@code file} as an .xlsx upload.
+     */
+    public static void writeWorkbook(int count, long seed, Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writeWorkbook(stream(count, seed), out);
+        }
+    }
+
+    private static void writeWorkbook(Iterator<Location> locations, OutputStream out) throws IOException {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100)) {
+            workbook.setCompressTempFiles(true);
+            Sheet sheet = workbook.createSheet("Locations");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Name");
+            header.createCell(1).setCellValue("Address");
+            header.createCell(2).setCellValue("Latitude");
+            header.createCell(3).setCellValue("Longitude");
+            int rowIdx = 1;
+            while (locations.hasNext()) {
+                Location location = locations.next();
+                Row row = sheet.createRow(rowIdx++);
+                row.createCell(0).setCellValue(location.getName());
+                row.createCell(1).setCellValue(location.getAddress());
+                row.createCell(2).setCellValue(location.getLatitude());
+                row.createCell(3).setCellValue(location.getLongitude());
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: LocationBenchData <rows> <file.xlsx> [seed]");
+            System.exit(2);
+        }
+        int rows = Integer.parseInt(args[0]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        writeWorkbook(rows, seed, Path.of(args[1]));
+        System.out.println("Wrote " + rows + " locations to " + args[1]);
+    }
+
+    private static final class City {
+        private final String name;
+        private final double latitude;
+        private final double longitude;
+        private final String[] districts;
+
+        City(String name, double latitude, double longitude, String[] districts) {
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.districts = districts;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the location benchmarks with the GC profiler (allocation rate per op) and writes JSON results
+ * so two runs can be compared. Optional argument: a regex selecting benchmarks, e.g. {@code Query}.
+ * Equivalent to {@code java -jar location-bench.jar -prof gc -rf json}.
+ */
+public class LocationBenchmarks {
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : LocationBenchmarks.class.getPackageName() + ".*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("location-bench.json");
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location.bench;
+
+import com.example.hcm25_cpl_ks_java_01_lms.location.Location;
+import com.example.hcm25_cpl_ks_java_01_lms.location.LocationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Excel generation: the in-memory workbook built from a page of locations ({@code generateExcel}, reached through
+ * {@link LocationService#exportToExcel(List)}) and the streamed whole-table export for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LocationExportBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private LocationService locationService;
+    private List<Location> locations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = LocationBenchApplication.start();
+        locationService = context.getBean(LocationService.class);
+        locations = LocationBenchData.locations(rows, 42);
+        locationService.saveAllFromExcel(locations);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ByteArrayInputStream generateExcel() throws IOException {
+        return locationService.exportToExcel(locations);
+    }
+
+    @Benchmark
+    public int exportAllStreaming() throws IOException {
+        return locationService.exportToExcel(OutputStream.nullOutputStream(), null);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location.bench;
+
+import com.example.hcm25_cpl_ks_java_01_lms.location.Location;
+import com.example.hcm25_cpl_ks_java_01_lms.location.LocationExcelImporter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing cost of {@link LocationExcelImporter#importLocations(java.io.InputStream)} alone; no database involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LocationImportBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private byte[] workbook;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workbook = LocationBenchData.workbook(LocationBenchData.locations(rows, 42));
+    }
+
+    @Benchmark
+    public List<Location> importLocations() throws IOException {
+        return LocationExcelImporter.importLocations(new ByteArrayInputStream(workbook));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location.bench;
+
+import com.example.hcm25_cpl_ks_java_01_lms.location.Location;
+import com.example.hcm25_cpl_ks_java_01_lms.location.LocationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LocationService#getAllLocations} at several table sizes and page depths, with and without a search term.
+ * Deep pages past the end of a small table are kept on purpose: they still pay for the count and the offset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LocationQueryBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    @Param({"0", "50", "2000"})
+    public int page;
+
+    // "" lists the table; the others go through the name search
+    @Param({"", "Hà", "chi nhanh da nang"})
+    public String searchTerm;
+
+    private ConfigurableApplicationContext context;
+    private LocationService locationService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = LocationBenchApplication.start();
+        locationService = context.getBean(LocationService.class);
+        locationService.saveAllFromExcel(LocationBenchData.locations(tableSize, 42));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Location> getAllLocations() {
+        return locationService.getAllLocations(searchTerm, page, PAGE_SIZE);
+    }
+}
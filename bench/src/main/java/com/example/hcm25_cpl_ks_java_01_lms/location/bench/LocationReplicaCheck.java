@@ -0,0 +1,144 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location.bench;
+
+import com.example.hcm25_cpl_ks_java_01_lms.location.Location;
+import com.example.hcm25_cpl_ks_java_01_lms.location.LocationReplicaDataSource;
+import com.example.hcm25_cpl_ks_java_01_lms.location.LocationService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Checks the read-replica routing against two embedded H2 databases. The "replica" gets the schema but no
+ * replication, so a read that returns the primary's rows shows it went to the primary. A second, unreachable
+ * replica shows the health check taking it out of rotation. A read-only transaction named after another module
+ * shows that only location reads are routed. A last check binds an EntityManager the way
+ * open-session-in-view does and runs a read followed by a write in the same "request". Exits with status 1 on
+ * the first failed check.
+ */
+public class LocationReplicaCheck {
+    private static final String DEAD_REPLICA_URL = "jdbc:h2:tcp://localhost:1/location-replica";
+
+    public static void main(String[] args) throws Exception {
+        String replicaUrl = "jdbc:h2:mem:location-replica-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        try (ConfigurableApplicationContext context = LocationBenchApplication.start(
+                "location.datasource.replica.urls=" + replicaUrl + "," + DEAD_REPLICA_URL,
+                "location.datasource.replica.sticky-window=PT2S",
+                "location.datasource.replica.health-check-interval=PT1S")) {
+            DataSource primary = context.getBean("locationPrimaryDataSource", DataSource.class);
+            copySchema(primary, replicaUrl);
+            LocationService locationService = context.getBean(LocationService.class);
+            LocationReplicaDataSource replicas = context.getBean(LocationReplicaDataSource.class);
+
+            runAs("alice");
+            Location created = locationService.createLocation(
+                    Location.builder().name("Cơ sở Lê Lợi").address("1 Lê Lợi, Quận 1").build());
+            check(total(locationService) == 1, "the writer reads its own write from the primary");
+
+            runAs("bob");
+            check(total(locationService) == 0, "another user's read-only query goes to the replica");
+            check(locationService.getLocationSummaries(null, 0, 10).getTotalElements() == 1,
+                    "version-tagged list reads use the primary right after a write");
+
+            Thread.sleep(2500);
+            runAs("alice");
+            check(total(locationService) == 0, "the writer goes back to the replica after the sticky window");
+            check(replicas.getHealthyReplicaCount() == 1, "the unreachable replica is out of rotation");
+            for (int i = 0; i < 4; i++) {
+                check(total(locationService) == 0, "reads keep working with one replica down");
+            }
+            TransactionTemplate otherModule = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            otherModule.setReadOnly(true);
+            otherModule.setName("com.example.hcm25_cpl_ks_java_01_lms.course.CourseService.getAllCourses");
+            JdbcTemplate application = new JdbcTemplate(context.getBean(DataSource.class));
+            Long otherModuleRows = otherModule.execute(status ->
+                    application.queryForObject("SELECT COUNT(*) FROM location", Long.class));
+            check(otherModuleRows != null && otherModuleRows == 1, "other modules' read-only transactions stay on the primary");
+
+            // The replica catches up, so the lookup below is answered by it
+            copyRows(primary, replicaUrl);
+            runAs("bob");
+            boolean updated = inOpenEntityManager(context, () -> {
+                Location location = locationService.getLocationById(created.getId());
+                location.setAddress("2 Lê Lợi, Quận 1");
+                locationService.updateLocation(location);
+            });
+            String address = new JdbcTemplate(primary).queryForObject(
+                    "SELECT address FROM location WHERE id = ?", String.class, created.getId());
+            check(updated && "2 Lê Lợi, Quận 1".equals(address),
+                    "with open-session-in-view, a write after a replica read in the same request goes to the primary");
+        }
+        System.out.println("Replica routing checks passed");
+    }
+
+    private static long total(LocationService locationService) {
+        return locationService.getLocations(null, 0, 10).getTotalElements();
+    }
+
+    private static void runAs(String user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    private static void check(boolean passed, String expectation) {
+        System.out.println((passed ? "ok   " : "FAIL ") + expectation);
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    // What OpenEntityManagerInViewInterceptor does around a web request; false if the request failed
+    private static boolean inOpenEntityManager(ConfigurableApplicationContext context, Runnable request) {
+        EntityManagerFactory entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            request.run();
+            return true;
+        } catch (RuntimeException e) {
+            System.out.println("     " + e);
+            return false;
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            EntityManagerFactoryUtils.closeEntityManager(entityManager);
+        }
+    }
+
+    // Stands in for replication: copies the primary's location rows into the (empty) replica table
+    private static void copyRows(DataSource primary, String replicaUrl) throws SQLException {
+        List<String> statements = new JdbcTemplate(primary).queryForList("SCRIPT NOSETTINGS TABLE location", String.class);
+        try (Connection replica = DriverManager.getConnection(replicaUrl, "sa", "");
+             Statement statement = replica.createStatement()) {
+            for (String sql : statements) {
+                if (sql.startsWith("INSERT")) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    // Recreates the primary's location table (schema only) in the replica database
+    private static void copySchema(DataSource primary, String replicaUrl) throws SQLException {
+        List<String> statements = new JdbcTemplate(primary).queryForList("SCRIPT NODATA TABLE location", String.class);
+        try (Connection replica = DriverManager.getConnection(replicaUrl, "sa", "");
+             Statement statement = replica.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+}
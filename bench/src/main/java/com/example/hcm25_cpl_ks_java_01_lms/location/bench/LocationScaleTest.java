@@ -0,0 +1,381 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location.bench;
+
+import com.example.hcm25_cpl_ks_java_01_lms.location.LocationAddressIndex;
+import com.example.hcm25_cpl_ks_java_01_lms.location.LocationBatchWriter;
+import com.example.hcm25_cpl_ks_java_01_lms.location.LocationNameIndex;
+import com.example.hcm25_cpl_ks_java_01_lms.location.LocationSpatialIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * End-to-end scale test: for each table size, boots the location controllers over HTTP on an embedded H2 file
+ * database, fills it from {@link LocationBenchData}, and drives every read endpoint, the full exports and
+ * a SYNC re-import of the same rows with concurrent clients. Per endpoint it records throughput, p50/p99 latency,
+ * failed requests and the peak heap, and writes them to a JSON report. It is a measurement, not a test: on its own
+ * it never fails. Given {@code --thresholds=<file>} (properties keyed {@code <endpoint>[.<rows>].p99-ms},
+ * {@code .min-throughput} or {@code .max-heap-mb}, the narrower key winning) it also checks the results against
+ * those limits and exits with status 1 when a request fails or a limit is broken. Take the limits from a report of
+ * the machine that runs the check.
+ * <p>
+ * Options: {@code --sizes=10000,100000} (add 1000000 for the large run), {@code --clients=16},
+ * {@code --requests=2000} (per light endpoint), {@code --thresholds=<file>}, {@code --report=location-scale.json},
+ * {@code --templates=fe}, {@code --seed=}. The database lives on disk with a 16 MB page cache, so the table itself
+ * does not count towards the heap figures.
+ */
+public class LocationScaleTest {
+    private static final String USER = "scale";
+    private static final String PASSWORD = "scale";
+    private static final String[] SEARCH_TERMS = {"Lê Lợi", "Cầu Giấy", "Trung tâm", "Hải Châu", "Phòng học", "Nguyễn"};
+    private static final String[] ADDRESS_TERMS = {"Tòa nhà", "ngõ", "Phường 12", "Quận 7", "bến xe", "Việt Nam"};
+    private static final int HEAVY_CLIENTS = 2;
+    private static final int HEAVY_REQUESTS = 4;
+
+    private final Map<String, String> options;
+    // Null without --thresholds: the run only reports
+    private final Properties thresholds;
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String authorization = "Basic " + Base64.getEncoder()
+            .encodeToString((USER + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+    private final List<Map<String, Object>> results = new ArrayList<>();
+    private final List<String> breaches = new ArrayList<>();
+
+    LocationScaleTest(Map<String, String> options, Properties thresholds) {
+        this.options = options;
+        this.thresholds = thresholds;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                System.err.println("Usage: LocationScaleTest [--sizes=10000,100000] [--clients=16] [--requests=2000]"
+                        + " [--thresholds=<file>] [--report=location-scale.json] [--templates=fe] [--seed=<n>]");
+                System.exit(2);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        String thresholdsFile = options.get("thresholds");
+        LocationScaleTest test = new LocationScaleTest(options,
+                thresholdsFile != null ? loadThresholds(Path.of(thresholdsFile)) : null);
+        int[] sizes = Arrays.stream(options.getOrDefault("sizes", "10000,100000").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim()))
+                .toArray();
+        for (int rows : sizes) {
+            test.run(rows);
+        }
+        test.writeReport(Path.of(options.getOrDefault("report", "location-scale.json")));
+        if (thresholdsFile == null) {
+            System.exit(0);
+        }
+        if (!test.breaches.isEmpty()) {
+            test.breaches.forEach(breach -> System.out.println("FAIL " + breach));
+            System.exit(1);
+        }
+        System.out.println("All results are within " + thresholdsFile);
+        System.exit(0);
+    }
+
+    void run(int rows) throws Exception {
+        long seed = Long.parseLong(options.getOrDefault("seed", String.valueOf(LocationBenchData.DEFAULT_SEED)));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "16"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "2000"));
+        Path dir = Files.createTempDirectory("location-scale-");
+        try (ConfigurableApplicationContext context = LocationBenchApplication.startWeb(
+                "jdbc:h2:file:" + dir.resolve("locations") + ";CACHE_SIZE=16384",
+                "server.port=0",
+                "spring.security.user.name=" + USER,
+                "spring.security.user.password=" + PASSWORD,
+                "spring.security.user.roles=Admin",
+                "spring.servlet.multipart.max-file-size=1GB",
+                "spring.servlet.multipart.max-request-size=1GB",
+                "spring.servlet.multipart.location=" + dir,
+                "location.bench.templates-dir=" + options.getOrDefault("templates", "fe"))) {
+            long loadStart = System.nanoTime();
+            LocationBenchData.populate(context.getBean(LocationBatchWriter.class),
+                    new TransactionTemplate(context.getBean(PlatformTransactionManager.class)), rows, seed);
+            context.getBean(LocationNameIndex.class).rebuild();
+            context.getBean(LocationAddressIndex.class).rebuild();
+            context.getBean(LocationSpatialIndex.class).rebuild();
+            Path upload = dir.resolve("locations.xlsx");
+            LocationBenchData.writeWorkbook(rows, seed, upload);
+            System.out.printf("%,d rows loaded in %,d ms%n", rows, (System.nanoTime() - loadStart) / 1_000_000);
+
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            int pages = Math.max(1, rows / 20);
+            light(rows, "page.list", clients, requests, random -> get(base + "/locations?page=" + random.nextInt(pages * 2)));
+            light(rows, "page.search", clients, requests, random -> get(base + "/locations?searchTerm=" + term(SEARCH_TERMS, random)));
+            light(rows, "api.list", clients, requests, random -> get(base + "/api/locations?size=20&page=" + random.nextInt(pages)));
+            light(rows, "api.search", clients, requests, random -> get(base + "/api/locations?size=20&searchTerm=" + term(SEARCH_TERMS, random)));
+            light(rows, "api.address", clients, requests, random -> get(base + "/api/locations?size=20&address=" + term(ADDRESS_TERMS, random)));
+            light(rows, "api.get", clients, requests, random -> get(base + "/api/locations/" + (1 + random.nextInt(rows))));
+            ThreadLocal<String> sliceCursor = new ThreadLocal<>();
+            light(rows, "api.slice", clients, requests, random -> slice(base, sliceCursor));
+            light(rows, "api.nearest", clients, requests, random -> get(base + "/api/locations/nearest?k=10&lat="
+                    + (10.7 + random.nextDouble() * 0.2) + "&lng=" + (106.6 + random.nextDouble() * 0.2)));
+
+            measure(rows, "page.export", HEAVY_CLIENTS, HEAVY_REQUESTS, random -> get(base + "/locations/export/all"));
+            measure(rows, "api.export.csv", HEAVY_CLIENTS, HEAVY_REQUESTS, random -> get(base + "/api/locations/export/csv"));
+            measure(rows, "page.print", HEAVY_CLIENTS, HEAVY_REQUESTS, random -> get(base + "/locations/print"));
+            // Every uploaded row matches the table, so the import must report all of them unchanged
+            measure(rows, "api.import.sync", 1, 1, random -> importSync(base, upload, rows));
+        } finally {
+            FileSystemUtils.deleteRecursively(dir);
+        }
+    }
+
+    private void light(int rows, String endpoint, int clients, int requests, Function<SplittableRandom, Call> call)
+            throws Exception {
+        // Unrecorded warm-up so JIT compilation and first-hit caches do not land in the percentiles
+        drive(clients, Math.max(clients, requests / 10), call);
+        measure(rows, endpoint, clients, requests, call);
+    }
+
+    private void measure(int rows, String endpoint, int clients, int requests, Function<SplittableRandom, Call> call)
+            throws Exception {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        Run run = drive(clients, requests, call);
+        long wallNanos = System.nanoTime() - start;
+        // Per-pool peaks may come from different moments, so the sum is an upper bound
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+        long[] latencies = Arrays.copyOf(run.latencies, run.completed.get());
+        Arrays.sort(latencies);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("endpoint", endpoint);
+        result.put("rows", rows);
+        result.put("clients", clients);
+        result.put("requests", latencies.length);
+        result.put("errors", run.errors.get());
+        result.put("throughput", latencies.length / (wallNanos / 1e9));
+        result.put("p50-ms", percentile(latencies, 0.50) / 1e6);
+        result.put("p99-ms", percentile(latencies, 0.99) / 1e6);
+        result.put("max-ms", latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0.0);
+        result.put("peak-heap-mb", peakHeap / (1024.0 * 1024.0));
+        results.add(result);
+        System.out.printf("%-16s %,9d rows  %8.1f req/s  p50 %8.1f ms  p99 %8.1f ms  heap %6.0f MB  errors %d%n",
+                endpoint, rows, result.get("throughput"), result.get("p50-ms"), result.get("p99-ms"),
+                result.get("peak-heap-mb"), run.errors.get());
+        check(result, run.firstError);
+    }
+
+    private Run drive(int clients, int requests, Function<SplittableRandom, Call> call) throws Exception {
+        Run run = new Run(requests);
+        AtomicInteger issued = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                SplittableRandom random = new SplittableRandom(c);
+                futures.add(executor.submit(() -> {
+                    for (int i = issued.getAndIncrement(); i < requests; i = issued.getAndIncrement()) {
+                        long start = System.nanoTime();
+                        String error;
+                        try {
+                            error = call.apply(random).send();
+                        } catch (IOException e) {
+                            error = e.toString();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return null;
+                        }
+                        run.latencies[run.completed.getAndIncrement()] = System.nanoTime() - start;
+                        if (error != null) {
+                            run.errors.incrementAndGet();
+                            run.firstError.compareAndSet(null, error);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return run;
+    }
+
+    private Call get(String url) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", authorization)
+                .timeout(Duration.ofMinutes(10))
+                .GET()
+                .build();
+        return () -> {
+            // Reads the whole body, so streamed exports are timed until their last byte
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 200 ? null : "GET " + url + " returned " + response.statusCode();
+        };
+    }
+
+    // Walks the table slice by slice, feeding each nextCursor into the next request so deeper keyset pages are
+    // measured too. Every client runs on its own thread, so each keeps its own position; it restarts at the end
+    private Call slice(String base, ThreadLocal<String> cursor) {
+        String after = cursor.get();
+        String url = base + "/api/locations?limit=50"
+                + (after != null ? "&after=" + URLEncoder.encode(after, StandardCharsets.UTF_8) : "");
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", authorization)
+                .timeout(Duration.ofMinutes(10))
+                .GET()
+                .build();
+        return () -> {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return "GET " + url + " returned " + response.statusCode();
+            }
+            cursor.set(objectMapper.readTree(response.body()).path("nextCursor").textValue());
+            return null;
+        };
+    }
+
+    private Call importSync(String base, Path upload, int rows) {
+        return () -> {
+            String boundary = "location-scale-" + System.nanoTime();
+            String head = "--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"locations.xlsx\"\r\n"
+                    + "Content-Type: application/vnd.openxmlformats-officedocument.spreadsheetml.sheet\r\n\r\n";
+            String tail = "\r\n--" + boundary + "--\r\n";
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/api/locations/import?mode=SYNC"))
+                    .header("Authorization", authorization)
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .timeout(Duration.ofMinutes(30))
+                    .POST(HttpRequest.BodyPublishers.concat(
+                            HttpRequest.BodyPublishers.ofString(head),
+                            HttpRequest.BodyPublishers.ofFile(upload),
+                            HttpRequest.BodyPublishers.ofString(tail)))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return "SYNC import returned " + response.statusCode() + ": " + response.body();
+            }
+            JsonNode result = objectMapper.readTree(response.body());
+            long unchanged = result.path("unchanged").asLong(-1);
+            return unchanged == rows ? null : "SYNC import reported " + unchanged + " of " + rows + " rows unchanged: " + result;
+        };
+    }
+
+    private void check(Map<String, Object> result, AtomicReference<String> firstError) {
+        if ((long) result.get("errors") > 0) {
+            System.out.println("  first error: " + firstError.get());
+        }
+        if (thresholds == null) {
+            return;
+        }
+        String endpoint = (String) result.get("endpoint");
+        int rows = (int) result.get("rows");
+        String label = endpoint + " at " + rows + " rows";
+        if ((long) result.get("errors") > 0) {
+            breaches.add(label + ": " + result.get("errors") + " failed requests, first: " + firstError.get());
+        }
+        Double p99Limit = limit(endpoint, rows, "p99-ms");
+        if (p99Limit != null && (double) result.get("p99-ms") > p99Limit) {
+            breaches.add(String.format("%s: p99 %.1f ms is above %.0f ms", label, (double) result.get("p99-ms"), p99Limit));
+        }
+        Double throughputLimit = limit(endpoint, rows, "min-throughput");
+        if (throughputLimit != null && (double) result.get("throughput") < throughputLimit) {
+            breaches.add(String.format("%s: %.1f req/s is below %.0f req/s", label, (double) result.get("throughput"), throughputLimit));
+        }
+        Double heapLimit = limit(endpoint, rows, "max-heap-mb");
+        if (heapLimit != null && (double) result.get("peak-heap-mb") > heapLimit) {
+            breaches.add(String.format("%s: peak heap %.0f MB is above %.0f MB", label, (double) result.get("peak-heap-mb"), heapLimit));
+        }
+    }
+
+    private Double limit(String endpoint, int rows, String name) {
+        String value = thresholds.getProperty(endpoint + "." + rows + "." + name, thresholds.getProperty(endpoint + "." + name));
+        return value != null ? Double.valueOf(value.trim()) : null;
+    }
+
+    private void writeReport(Path report) throws IOException {
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("options", options);
+        content.put("maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        content.put("results", results);
+        if (thresholds != null) {
+            content.put("breaches", breaches);
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(report.toFile(), content);
+        System.out.println("Wrote " + report.toAbsolutePath());
+    }
+
+    private static Properties loadThresholds(Path file) throws IOException {
+        Properties thresholds = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            thresholds.load(in);
+        }
+        return thresholds;
+    }
+
+    private static String term(String[] terms, SplittableRandom random) {
+        return URLEncoder.encode(terms[random.nextInt(terms.length)], StandardCharsets.UTF_8);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        /**
+         * Sends the request and returns null on success, or a description of what went wrong.
+         */
+        String send() throws IOException, InterruptedException;
+    }
+
+    private static final class Run {
+        private final long[] latencies;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicReference<String> firstError = new AtomicReference<>();
+
+        Run(int requests) {
+            this.latencies = new long[requests];
+        }
+    }
+}
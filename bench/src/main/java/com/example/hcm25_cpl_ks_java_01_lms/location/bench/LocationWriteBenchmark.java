@@ -0,0 +1,74 @@
+package com.example.hcm25_cpl_ks_java_01_lms.location.bench;
+
+import com.example.hcm25_cpl_ks_java_01_lms.location.Location;
+import com.example.hcm25_cpl_ks_java_01_lms.location.LocationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LocationService#createLocation} for a new name and for a name that already exists (the duplicate check
+ * path), and {@link LocationService#getLocationOfDepartment} with the read cache on and effectively off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LocationWriteBenchmark {
+    @Param({"10000"})
+    public int tableSize;
+
+    // PT0S makes every cache entry expire immediately, so each call goes to the database
+    @Param({"PT10M", "PT0S"})
+    public String cacheTtl;
+
+    private ConfigurableApplicationContext context;
+    private LocationService locationService;
+    private String existingName;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = LocationBenchApplication.start("location.cache.ttl=" + cacheTtl);
+        locationService = context.getBean(LocationService.class);
+        List<Location> locations = LocationBenchData.locations(tableSize, 42);
+        locationService.saveAllFromExcel(locations);
+        existingName = locations.get(0).getName();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Location createLocation() {
+        return locationService.createLocation(Location.builder()
+                .name("Cơ sở mới " + (++sequence))
+                .address("1 Lê Lợi, Quận 1, Hồ Chí Minh")
+                .build());
+    }
+
+    @Benchmark
+    public String createDuplicateLocation() {
+        try {
+            locationService.createLocation(Location.builder()
+                    .name(existingName)
+                    .address("1 Lê Lợi, Quận 1, Hồ Chí Minh")
+                    .build());
+            throw new IllegalStateException("Duplicate name was accepted");
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> getLocationOfDepartment() {
+        return locationService.getLocationOfDepartment();
+    }
+}
@@ -0,0 +1,116 @@
+// Load test for /api/locations, used to compare location.api.execution-mode=blocking with =virtual.
+//
+// Run the application once per mode against the same database, then:
+//   k6 run -e BASE_URL=http://localhost:8080 -e SESSION=<JSESSIONID of a user with the Location role> \
+//          -e RATE=400 -e DURATION=2m -e MODE=blocking perf/location-api-load.js
+// Each run writes its summary to perf/results/location-api-<MODE>.json. Run the second mode with
+// -e MODE=virtual -e BASELINE=results/location-api-blocking.json to print p95/p99, throughput and shed rate
+// side by side with the first run. Keep server.tomcat.threads.max and the connection pool size the same for both
+// runs, and commit the result files together with the hardware and dataset size they were measured on.
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+import { textSummary } from 'https://jslib.k6.io/k6-summary/0.0.2/index.js';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const RATE = parseInt(__ENV.RATE || '400', 10);
+const DURATION = __ENV.DURATION || '2m';
+const MAX_ID = parseInt(__ENV.MAX_ID || '10000', 10);
+const MODE = __ENV.MODE || 'unlabelled';
+// open() only works in the init context; the path is relative to this script
+const BASELINE = __ENV.BASELINE ? JSON.parse(open(__ENV.BASELINE)) : null;
+const TERMS = ['ha', 'noi', 'ho chi', 'da nang', 'quan', 'phuong', 'can tho', 'hue'];
+
+const shed = new Counter('location_shed');
+const okLatency = new Trend('location_ok_duration', true);
+
+export const options = {
+    scenarios: {
+        // Open model: requests keep arriving at RATE/s however slow the server gets, like the burst
+        // traffic from the department and course modules
+        burst: {
+            executor: 'constant-arrival-rate',
+            rate: RATE,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: Math.max(50, RATE),
+            maxVUs: RATE * 4,
+        },
+    },
+    thresholds: {
+        http_req_failed: [{ threshold: 'rate<0.01', abortOnFail: false }],
+        location_ok_duration: ['p(95)<500'],
+    },
+    summaryTrendStats: ['avg', 'med', 'p(90)', 'p(95)', 'p(99)', 'max'],
+};
+
+const params = {
+    headers: { Accept: 'application/json' },
+    cookies: __ENV.SESSION ? { JSESSIONID: __ENV.SESSION } : {},
+    // 429 is expected load shedding, not a failure
+    responseCallback: http.expectedStatuses(200, 304, 404, 429),
+};
+
+function pick(values) {
+    return values[Math.floor(Math.random() * values.length)];
+}
+
+export default function () {
+    const roll = Math.random();
+    let res;
+    if (roll < 0.4) {
+        res = http.get(`${BASE_URL}/api/locations?page=${Math.floor(Math.random() * 50)}&size=20`, params);
+    } else if (roll < 0.7) {
+        res = http.get(`${BASE_URL}/api/locations?searchTerm=${encodeURIComponent(pick(TERMS))}&size=20`, params);
+    } else if (roll < 0.85) {
+        res = http.get(`${BASE_URL}/api/locations/${1 + Math.floor(Math.random() * MAX_ID)}`, params);
+    } else if (roll < 0.9) {
+        res = http.get(`${BASE_URL}/api/locations/options`, params);
+    } else {
+        res = http.get(`${BASE_URL}/api/locations?limit=50`, params);
+    }
+
+    if (res.status === 429) {
+        shed.add(1);
+        check(res, { 'shed response has Retry-After': (r) => r.headers['Retry-After'] !== undefined });
+        return;
+    }
+    okLatency.add(res.timings.duration);
+    check(res, { 'status is 200, 304 or 404': (r) => r.status === 200 || r.status === 304 || r.status === 404 });
+}
+
+function headline(data) {
+    const latency = data.metrics.location_ok_duration.values;
+    const requests = data.metrics.http_reqs.values;
+    const shedCount = data.metrics.location_shed ? data.metrics.location_shed.values.count : 0;
+    return {
+        p95: latency['p(95)'],
+        p99: latency['p(99)'],
+        rps: requests.rate,
+        shedRate: requests.count > 0 ? shedCount / requests.count : 0,
+    };
+}
+
+function comparison(current, baseline) {
+    const lines = [`\n${baseline.mode} -> ${MODE}`];
+    for (const key of ['p95', 'p99', 'rps', 'shedRate']) {
+        const before = baseline.headline[key];
+        const after = current[key];
+        const change = before ? ` (${(((after - before) / before) * 100).toFixed(1)}%)` : '';
+        lines.push(`  ${key}: ${before.toFixed(3)} -> ${after.toFixed(3)}${change}`);
+    }
+    return lines.join('\n') + '\n';
+}
+
+export function handleSummary(data) {
+    const current = headline(data);
+    const result = { mode: MODE, rate: RATE, duration: DURATION, headline: current, metrics: data.metrics };
+    let text = textSummary(data, { indent: ' ', enableColors: true });
+    if (BASELINE) {
+        text += comparison(current, BASELINE);
+    }
+    return {
+        stdout: text,
+        [`perf/results/location-api-${MODE}.json`]: JSON.stringify(result, null, 2),
+    };
+}